@@ -0,0 +1,77 @@
+package com.example.springwebflux.benchmark;
+
+import com.example.springwebflux.domain.Book;
+import com.example.springwebflux.service.mapper.Mapper;
+import com.example.springwebflux.service.mapper.Mappers;
+import com.example.springwebflux.web.dto.BookDto;
+import com.example.springwebflux.web.dto.StudentDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode time of the JSON and Smile representations of the same lists. The payload sizes are printed once per
+ * trial, since bytes on the wire do not vary between invocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BinaryFormatBenchmark {
+
+    @Param({"json", "smile"})
+    private String format;
+
+    @Param({"100", "10000"})
+    private int students;
+
+    @Param({"5"})
+    private int booksPerStudent;
+
+    private ObjectMapper objectMapper;
+
+    private List<StudentDto> studentDtos;
+
+    private List<BookDto> bookDtos;
+
+    @Setup
+    public void setup() throws JsonProcessingException {
+        ObjectMapper jsonMapper = Jackson2ObjectMapperBuilder.json().build();
+        objectMapper = "smile".equals(format) ? jsonMapper.copyWith(new SmileFactory()) : jsonMapper;
+        studentDtos = Fixtures.studentDtos(students, booksPerStudent);
+        Mapper<Book, BookDto> bookDtoMapper = Mappers.bookDtoMapper();
+        bookDtos = bookDtoMapper.mapList(Fixtures.books(students));
+
+        System.out.printf("%n%s: students %d bytes, books %d bytes%n",
+                          format,
+                          objectMapper.writeValueAsBytes(studentDtos).length,
+                          objectMapper.writeValueAsBytes(bookDtos).length);
+    }
+
+    @Benchmark
+    public byte[] encodeStudents() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(studentDtos);
+    }
+
+    @Benchmark
+    public byte[] encodeBooks() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(bookDtos);
+    }
+}
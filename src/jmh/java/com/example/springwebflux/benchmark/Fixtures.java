@@ -0,0 +1,113 @@
+package com.example.springwebflux.benchmark;
+
+import com.example.springwebflux.domain.Book;
+import com.example.springwebflux.domain.Student;
+import com.example.springwebflux.domain.StudentBook;
+import com.example.springwebflux.domain.StudentBookRow;
+import com.example.springwebflux.web.dto.BookDto;
+import com.example.springwebflux.web.dto.StudentDto;
+
+import java.lang.reflect.Field;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deterministic benchmark data: student {@code i} holds books {@code i .. i + booksPerStudent - 1}
+ * out of a catalogue of {@code students} books, so results do not depend on a random seed.
+ */
+public final class Fixtures {
+
+    private static final LocalDateTime TIMESTAMP = LocalDateTime.of(2023, 7, 1, 12, 0);
+
+    private Fixtures() {
+    }
+
+    public static List<Book> books(int count) {
+        List<Book> books = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            Book book = new Book("Title " + id, "Author " + id);
+            book.setCreatedAt(TIMESTAMP);
+            book.setLastModifiedAt(TIMESTAMP);
+            books.add(withId(book, id));
+        }
+        return books;
+    }
+
+    public static List<Student> students(int count) {
+        List<Student> students = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            students.add(withId(new Student("First " + id, "Last " + id), id));
+        }
+        return students;
+    }
+
+    public static List<StudentBook> links(int students, int booksPerStudent) {
+        List<StudentBook> links = new ArrayList<>(students * booksPerStudent);
+        for (long studentId = 1; studentId <= students; studentId++) {
+            for (int offset = 0; offset < booksPerStudent; offset++) {
+                links.add(new StudentBook(studentId, bookId(studentId, offset, students)));
+            }
+        }
+        return links;
+    }
+
+    /**
+     * The join rows {@code StudentRepository.findRowPage} would return for {@link #links}, in student order.
+     */
+    public static List<StudentBookRow> rows(int students, int booksPerStudent) {
+        List<Book> books = books(students);
+        List<StudentBookRow> rows = new ArrayList<>(students * Math.max(1, booksPerStudent));
+        for (long studentId = 1; studentId <= students; studentId++) {
+            if (booksPerStudent == 0) {
+                rows.add(new StudentBookRow(studentId, "First " + studentId, "Last " + studentId, null, null, null, null, null));
+            }
+            for (int offset = 0; offset < booksPerStudent; offset++) {
+                Book book = books.get((int) bookId(studentId, offset, students) - 1);
+                rows.add(new StudentBookRow(studentId, "First " + studentId, "Last " + studentId, book.getId(),
+                                            book.getTitle(), book.getAuthor(), book.getCreatedAt(), book.getLastModifiedAt()));
+            }
+        }
+        return rows;
+    }
+
+    public static List<Student> studentsWithBooks(int students, int booksPerStudent) {
+        List<Book> books = books(students);
+        List<Student> result = students(students);
+        for (Student student : result) {
+            List<Book> owned = new ArrayList<>(booksPerStudent);
+            for (int offset = 0; offset < booksPerStudent; offset++) {
+                owned.add(books.get((int) bookId(student.getId(), offset, students) - 1));
+            }
+            student.withBooks(owned);
+        }
+        return result;
+    }
+
+    public static List<StudentDto> studentDtos(int students, int booksPerStudent) {
+        List<StudentDto> result = new ArrayList<>(students);
+        for (Student student : studentsWithBooks(students, booksPerStudent)) {
+            List<BookDto> books = new ArrayList<>(booksPerStudent);
+            for (Book book : student.getBooks()) {
+                books.add(new BookDto(book.getId(), book.getTitle(), book.getAuthor(), book.getCreatedAt(), book.getLastModifiedAt()));
+            }
+            result.add(new StudentDto(student.getId(), student.getFirstName(), student.getLastName(), books));
+        }
+        return result;
+    }
+
+    private static long bookId(long studentId, int offset, int catalogue) {
+        return (studentId - 1 + offset) % catalogue + 1;
+    }
+
+    private static <T> T withId(T entity, long id) {
+        try {
+            Field field = entity.getClass().getDeclaredField("id");
+            field.setAccessible(true);
+            field.set(entity, id);
+            return entity;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.springwebflux.benchmark;
+
+import com.example.springwebflux.domain.Student;
+import com.example.springwebflux.domain.StudentBookRow;
+import com.example.springwebflux.service.mapper.Mapper;
+import com.example.springwebflux.service.mapper.Mappers;
+import com.example.springwebflux.web.codec.StudentRowsEncoder;
+import com.example.springwebflux.web.dto.StudentDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int students;
+
+    @Param({"5"})
+    private int booksPerStudent;
+
+    private ObjectMapper objectMapper;
+
+    private List<StudentDto> dtos;
+
+    private Jackson2JsonEncoder encoder;
+
+    private Mapper<Student, StudentDto> studentDtoMapper;
+
+    private List<Student> entities;
+
+    private StudentRowsEncoder rowsEncoder;
+
+    private List<StudentBookRow> rows;
+
+    /**
+     * Pooled like the buffers Reactor Netty hands to the encoders, so only what a response really costs is counted.
+     */
+    private DataBufferFactory bufferFactory;
+
+    @Setup
+    public void setup() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        dtos = Fixtures.studentDtos(students, booksPerStudent);
+        encoder = new Jackson2JsonEncoder(objectMapper);
+        studentDtoMapper = Mappers.studentDtoMapper();
+        entities = Fixtures.studentsWithBooks(students, booksPerStudent);
+        rowsEncoder = new StudentRowsEncoder(objectMapper, objectMapper.copyWith(new SmileFactory()));
+        rows = Fixtures.rows(students, booksPerStudent);
+        bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+    }
+
+    @Benchmark
+    public byte[] writeStudentList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(dtos);
+    }
+
+    /**
+     * Each entity is mapped and handed to Spring's JSON encoder on its own, without a {@code List<StudentDto>} for the
+     * whole response.
+     */
+    @Benchmark
+    public long encodeStudentStream() {
+        return drain(encoder.encode(Flux.fromIterable(entities).map(studentDtoMapper::map),
+                                    bufferFactory,
+                                    ResolvableType.forClass(StudentDto.class),
+                                    MediaType.APPLICATION_JSON,
+                                    null));
+    }
+
+    /**
+     * The response path of {@code GET /api/students} since it streams join rows: {@link StudentRowsEncoder} writes
+     * each student straight from its rows, without any entity or DTO in between.
+     */
+    @Benchmark
+    public long encodeStudentRows() {
+        return drain(rowsEncoder.encode(Flux.fromIterable(rows),
+                                        bufferFactory,
+                                        ResolvableType.forClass(StudentBookRow.class),
+                                        MediaType.APPLICATION_JSON,
+                                        null));
+    }
+
+    /**
+     * Same response, but with every DTO materialised in a list before writing it in one go.
+     */
+    @Benchmark
+    public byte[] mapListThenWrite() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(studentDtoMapper.mapList(entities));
+    }
+
+    private static long drain(Flux<DataBuffer> buffers) {
+        return buffers.map(buffer -> {
+                          int size = buffer.readableByteCount();
+                          DataBufferUtils.release(buffer);
+                          return (long) size;
+                      })
+                      .reduce(0L, Long::sum)
+                      .block();
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.springwebflux.benchmark;
+
+import com.example.springwebflux.domain.Book;
+import com.example.springwebflux.domain.Student;
+import com.example.springwebflux.domain.StudentBook;
+import com.example.springwebflux.domain.StudentBookRow;
+import com.example.springwebflux.repository.BookRepository;
+import com.example.springwebflux.repository.StudentBookRepository;
+import com.example.springwebflux.repository.StudentRepository;
+import reactor.core.publisher.Flux;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * In-memory repositories answering only the queries used on the read path. Every query is delayed by
+ * a fixed latency to stand in for the database round trip.
+ */
+public final class StubRepositories {
+
+    private StubRepositories() {
+    }
+
+    /**
+     * {@code rows} must hold the same students in id order, each with at least one row.
+     */
+    public static StudentRepository students(List<Student> students, List<StudentBookRow> rows, Duration latency) {
+        List<Integer> firstRows = new ArrayList<>(students.size() + 1);
+        for (int i = 0; i < rows.size(); i++) {
+            if (i == 0 || !rows.get(i).getStudentId().equals(rows.get(i - 1).getStudentId())) {
+                firstRows.add(i);
+            }
+        }
+        firstRows.add(rows.size());
+
+        return stub(StudentRepository.class, Map.of(
+                "findPage", args -> {
+                    long after = (Long) args[0];
+                    int limit = (Integer) args[1];
+                    int from = (int) Math.min(after, students.size());
+                    return delayed(Flux.fromIterable(students.subList(from, Math.min(from + limit, students.size()))), latency);
+                },
+                "findRowPage", args -> {
+                    long after = (Long) args[0];
+                    int limit = (Integer) args[1];
+                    int from = (int) Math.min(after, students.size());
+                    int to = Math.min(from + limit, students.size());
+                    return delayed(Flux.fromIterable(rows.subList(firstRows.get(from), firstRows.get(to))), latency);
+                }));
+    }
+
+    public static StudentBookRepository studentBooks(List<StudentBook> links, Duration latency) {
+        return stub(StudentBookRepository.class, Map.of(
+                "findAllByStudentIdIn", args -> {
+                    Set<Long> studentIds = new HashSet<>((Collection<Long>) args[0]);
+                    return delayed(Flux.fromIterable(links).filter(link -> studentIds.contains(link.getStudentId())), latency);
+                }));
+    }
+
+    public static BookRepository books(List<Book> books, Duration latency) {
+        return stub(BookRepository.class, Map.of(
+                "findAllByIds", args -> delayed(Flux.fromArray((Long[]) args[0])
+                                                    .map(id -> books.get(id.intValue() - 1)), latency)));
+    }
+
+    private static <T> Flux<T> delayed(Flux<T> result, Duration latency) {
+        return latency.isZero() ? result : result.delaySubscription(latency);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Function<Object[], Object> answer = answers.get(method.getName());
+            if (answer == null) {
+                throw new UnsupportedOperationException(method.toString());
+            }
+            return answer.apply(args);
+        });
+    }
+}
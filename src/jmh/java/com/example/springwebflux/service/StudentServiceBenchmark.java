@@ -0,0 +1,166 @@
+package com.example.springwebflux.service;
+
+import brave.Tracing;
+import brave.handler.SpanHandler;
+import brave.sampler.Sampler;
+import com.example.springwebflux.benchmark.Fixtures;
+import com.example.springwebflux.benchmark.StubRepositories;
+import com.example.springwebflux.config.BookLoaderProperties;
+import com.example.springwebflux.config.BulkProperties;
+import com.example.springwebflux.config.PaginationProperties;
+import com.example.springwebflux.config.StudentBooksProperties;
+import com.example.springwebflux.domain.Book;
+import com.example.springwebflux.domain.Student;
+import com.example.springwebflux.domain.StudentBookRow;
+import com.example.springwebflux.repository.BookRepository;
+import com.example.springwebflux.repository.StudentBookRepository;
+import com.example.springwebflux.repository.StudentRepository;
+import com.example.springwebflux.service.mapper.Mappers;
+import com.example.springwebflux.web.dto.StudentDto;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.tracing.brave.bridge.BraveBaggageManager;
+import io.micrometer.tracing.brave.bridge.BraveCurrentTraceContext;
+import io.micrometer.tracing.brave.bridge.BraveTracer;
+import io.micrometer.tracing.handler.DefaultTracingObservationHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.aop.target.HotSwappableTargetSource;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read path of {@link StudentService} against in-memory repositories with a configurable per-query latency.
+ * The book cache is rebuilt before every invocation so each one pays for its book lookups. With {@code observed}
+ * the service is wrapped in {@link ServiceObservations} and meters, and 10% sampled spans, are recorded as in
+ * production; without it they go to a registry with no backing store.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StudentServiceBenchmark {
+
+    @Param({"100", "10000"})
+    private int students;
+
+    @Param({"5"})
+    private int booksPerStudent;
+
+    @Param({"0", "200"})
+    private long latencyMicros;
+
+    @Param({"false", "true"})
+    private boolean observed;
+
+    private StudentRepository studentRepository;
+    private StudentBookRepository studentBookRepository;
+    private BookRepository bookRepository;
+    private List<Student> entities;
+    private MeterRegistry meterRegistry;
+    private ObservationRegistry observationRegistry;
+
+    private HotSwappableTargetSource target;
+    private StudentService studentService;
+    private StudentBooksLoader studentBooksLoader;
+
+    @Setup
+    public void setup() {
+        Duration latency = Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(latencyMicros));
+        List<Book> books = Fixtures.books(students);
+        entities = Fixtures.students(students);
+
+        studentRepository = StubRepositories.students(entities, Fixtures.rows(students, booksPerStudent), latency);
+        studentBookRepository = StubRepositories.studentBooks(Fixtures.links(students, booksPerStudent), latency);
+        bookRepository = StubRepositories.books(books, latency);
+
+        if (observed) {
+            meterRegistry = new SimpleMeterRegistry();
+            Tracing tracing = Tracing.newBuilder()
+                                     .sampler(Sampler.create(0.1f))
+                                     .addSpanHandler(new SpanHandler() {
+                                     })
+                                     .build();
+            BraveTracer tracer = new BraveTracer(tracing.tracer(),
+                                                 new BraveCurrentTraceContext(tracing.currentTraceContext()),
+                                                 new BraveBaggageManager());
+            observationRegistry = ObservationRegistry.create();
+            observationRegistry.observationConfig()
+                               .observationHandler(new DefaultMeterObservationHandler(meterRegistry))
+                               .observationHandler(new DefaultTracingObservationHandler(tracer));
+        } else {
+            meterRegistry = new CompositeMeterRegistry();
+            observationRegistry = ObservationRegistry.NOOP;
+        }
+    }
+
+    private StudentService observed(StudentService service) {
+        if (target == null) {
+            target = new HotSwappableTargetSource(service);
+            AspectJProxyFactory proxy = new AspectJProxyFactory();
+            proxy.setTargetSource(target);
+            proxy.setProxyTargetClass(true);
+            proxy.addAspect(new ServiceObservations(observationRegistry));
+            return proxy.getProxy();
+        }
+        target.swap(service);
+        return studentService;
+    }
+
+    @Setup(Level.Invocation)
+    public void resetCache() {
+        studentBooksLoader = new StudentBooksLoader(studentBookRepository,
+                                                    new BookCache(Caffeine.newBuilder().buildAsync(),
+                                                                  new BookLoader(bookRepository,
+                                                                                 new BookLoaderProperties(Duration.ZERO, 500),
+                                                                                 meterRegistry)),
+                                                    new StudentBooksProperties(500),
+                                                    meterRegistry);
+        StudentService service = new StudentService(studentRepository,
+                                                    studentBookRepository,
+                                                    Mappers.studentDtoMapper(),
+                                                    null,
+                                                    studentBooksLoader,
+                                                    new PaginationProperties(1000, 500),
+                                                    new BulkProperties(500),
+                                                    null,
+                                                    null,
+                                                    null);
+        studentService = observed ? observed(service) : service;
+    }
+
+    @Benchmark
+    public StudentBookRow getAllRows() {
+        return studentService.getAllRows(null).blockLast();
+    }
+
+    @Benchmark
+    public StudentDto getPage() {
+        return studentService.getPage(null, 500).blockLast();
+    }
+
+    @Benchmark
+    public Student withBooks() {
+        return studentBooksLoader.withBooks(Flux.fromIterable(entities)).blockLast();
+    }
+}
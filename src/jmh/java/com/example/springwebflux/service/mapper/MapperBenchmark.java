@@ -0,0 +1,78 @@
+package com.example.springwebflux.service.mapper;
+
+import com.example.springwebflux.benchmark.Fixtures;
+import com.example.springwebflux.domain.Book;
+import com.example.springwebflux.domain.Student;
+import com.example.springwebflux.web.dto.BookDto;
+import com.example.springwebflux.web.dto.StudentDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int students;
+
+    @Param({"5"})
+    private int booksPerStudent;
+
+    private Mapper<Student, StudentDto> studentDtoMapper;
+
+    private Mapper<Book, BookDto> bookDtoMapper;
+
+    private List<Student> entities;
+
+    @Setup
+    public void setup() {
+        bookDtoMapper = new BookDtoMapper();
+        studentDtoMapper = new StudentDtoMapper(bookDtoMapper);
+        entities = Fixtures.studentsWithBooks(students, booksPerStudent);
+    }
+
+    @Benchmark
+    public StudentDto map() {
+        return studentDtoMapper.map(entities.get(0));
+    }
+
+    @Benchmark
+    public List<StudentDto> mapList() {
+        return studentDtoMapper.mapList(entities);
+    }
+
+    /**
+     * The previous stream/collector based {@code mapList}, kept as the baseline for {@code -prof gc}.
+     */
+    @Benchmark
+    public List<StudentDto> mapListCollector() {
+        return collect(entities, student -> new StudentDto(student.getId(),
+                                                           student.getFirstName(),
+                                                           student.getLastName(),
+                                                           collect(student.getBooks(), bookDtoMapper::map)));
+    }
+
+    private static <T, U> List<U> collect(List<T> entities, Function<T, U> mapper) {
+        return entities.stream()
+                       .map(mapper)
+                       .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.springwebflux.service.mapper;
+
+import com.example.springwebflux.domain.Book;
+import com.example.springwebflux.domain.Student;
+import com.example.springwebflux.web.dto.BookDto;
+import com.example.springwebflux.web.dto.StudentDto;
+
+/**
+ * Exposes the package-private mappers to benchmarks outside this package.
+ */
+public final class Mappers {
+
+    private Mappers() {
+    }
+
+    public static Mapper<Book, BookDto> bookDtoMapper() {
+        return new BookDtoMapper();
+    }
+
+    public static Mapper<Student, StudentDto> studentDtoMapper() {
+        return new StudentDtoMapper(bookDtoMapper());
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.springwebflux.loadtest;
+
+import com.example.springwebflux.SpringWebfluxApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The application started in-process on a random port, against either the configured database or a
+ * throwaway Postgres container.
+ */
+class ApplicationUnderTest implements AutoCloseable {
+
+    private final PostgreSQLContainer<?> postgres;
+    private final ConfigurableApplicationContext context;
+
+    ApplicationUnderTest(LoadTestSettings settings) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("server.port", 0);
+        properties.put("logging.level.root", "warn");
+
+        if (settings.r2dbcUrl() == null) {
+            postgres = new PostgreSQLContainer<>(DockerImageName.parse("postgres:13.3"))
+                    .withDatabaseName("loadtest")
+                    .withUsername(settings.username())
+                    .withPassword(settings.password());
+            postgres.start();
+            properties.put("spring.r2dbc.url", "r2dbc:postgresql://" + postgres.getHost() + ":"
+                    + postgres.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT) + "/" + postgres.getDatabaseName());
+            properties.put("spring.flyway.url", postgres.getJdbcUrl());
+        } else {
+            postgres = null;
+            properties.put("spring.r2dbc.url", settings.r2dbcUrl());
+            if (settings.jdbcUrl() != null) {
+                properties.put("spring.flyway.url", settings.jdbcUrl());
+            }
+        }
+        properties.put("spring.r2dbc.username", settings.username());
+        properties.put("spring.r2dbc.password", settings.password());
+
+        context = new SpringApplicationBuilder(SpringWebfluxApplication.class)
+                .properties(properties)
+                .run();
+    }
+
+    String baseUrl() {
+        return "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+    }
+
+    @Override
+    public void close() {
+        context.close();
+        if (postgres != null) {
+            postgres.stop();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.springwebflux.loadtest;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ids created while seeding. Books are split into the ones assigned during seeding and spare ones that
+ * only the scenarios assign, so every single enrolment targets a pair that does not exist yet.
+ */
+class Dataset {
+
+    private final List<Long> studentIds;
+    private final List<Long> bookIds;
+    private final List<Long> spareBookIds;
+    private final AtomicLong enrolled = new AtomicLong();
+    private final AtomicLong unenrolled = new AtomicLong();
+
+    Dataset(List<Long> studentIds, List<Long> bookIds, List<Long> spareBookIds) {
+        this.studentIds = studentIds;
+        this.bookIds = bookIds;
+        this.spareBookIds = spareBookIds;
+    }
+
+    long randomStudentId() {
+        return studentIds.get(ThreadLocalRandom.current().nextInt(studentIds.size()));
+    }
+
+    long randomBookId() {
+        return bookIds.get(ThreadLocalRandom.current().nextInt(bookIds.size()));
+    }
+
+    /**
+     * The next pair that has never been handed out; wraps around after every student got every spare book.
+     */
+    long[] nextNewPair() {
+        return pair(enrolled.getAndIncrement());
+    }
+
+    /**
+     * A pair handed out by {@link #nextNewPair()} earlier, or a fresh one when removals caught up with additions.
+     */
+    long[] nextAssignedPair() {
+        long index = unenrolled.getAndIncrement();
+        return pair(index < enrolled.get() ? index : enrolled.getAndIncrement());
+    }
+
+    private long[] pair(long index) {
+        int student = (int) (index % studentIds.size());
+        int book = (int) (index / studentIds.size() % spareBookIds.size());
+        return new long[]{studentIds.get(student), spareBookIds.get(book)};
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.springwebflux.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms and error counts per endpoint for one measurement window.
+ */
+class LoadStats {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    void record(String endpoint, long elapsedNanos, boolean error) {
+        endpoints.computeIfAbsent(endpoint, ignored -> new Endpoint()).record(elapsedNanos, error);
+    }
+
+    void report(Scenario scenario, Duration elapsed, int concurrency, PrintStream out) {
+        double seconds = elapsed.toNanos() / 1e9;
+        Endpoint total = new Endpoint();
+
+        out.printf("%nScenario %s: %.1fs, concurrency %d%n", scenario.label(), seconds, concurrency);
+        out.printf("%-42s %9s %7s %7s %9s %9s %9s %9s %9s%n",
+                   "endpoint", "requests", "errors", "err %", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        new TreeMap<>(endpoints).forEach((name, endpoint) -> {
+            endpoint.print(name, seconds, out);
+            total.add(endpoint);
+        });
+        total.print("total", seconds, out);
+    }
+
+    private static final class Endpoint {
+
+        private final Histogram latencies = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        private final LongAdder errors = new LongAdder();
+
+        void record(long elapsedNanos, boolean error) {
+            latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(elapsedNanos), HIGHEST_TRACKABLE_MICROS));
+            if (error) {
+                errors.increment();
+            }
+        }
+
+        void add(Endpoint other) {
+            latencies.add(other.latencies);
+            errors.add(other.errors.sum());
+        }
+
+        void print(String name, double seconds, PrintStream out) {
+            long requests = latencies.getTotalCount();
+            long failed = errors.sum();
+            out.printf("%-42s %9d %7d %7.2f %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+                       name,
+                       requests,
+                       failed,
+                       requests == 0 ? 0.0 : 100.0 * failed / requests,
+                       requests / seconds,
+                       millis(latencies.getValueAtPercentile(50)),
+                       millis(latencies.getValueAtPercentile(95)),
+                       millis(latencies.getValueAtPercentile(99)),
+                       millis(latencies.getMaxValue()));
+        }
+
+        private static double millis(long micros) {
+            return micros / 1000.0;
+        }
+    }
+}
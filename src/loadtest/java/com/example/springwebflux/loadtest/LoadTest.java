@@ -0,0 +1,86 @@
+package com.example.springwebflux.loadtest;
+
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * Load harness for the REST endpoints: seeds data, then runs each scenario for a warm-up and a measured
+ * window and prints throughput, latency percentiles and error rates per endpoint.
+ *
+ * <pre>
+ * mvn -Ploadtest test-compile exec:exec -Dloadtest.args="scenario=read-heavy duration=60s concurrency=128"
+ * </pre>
+ */
+public class LoadTest {
+
+    public static void main(String[] args) {
+        LoadTestSettings settings = LoadTestSettings.parse(args);
+
+        ApplicationUnderTest application = settings.baseUrl() == null ? new ApplicationUnderTest(settings) : null;
+        ConnectionProvider connections = ConnectionProvider.builder("loadtest")
+                .maxConnections(settings.concurrency())
+                .pendingAcquireMaxCount(-1)
+                .build();
+        try {
+            WebClient webClient = WebClient.builder()
+                    .baseUrl(application == null ? settings.baseUrl() : application.baseUrl())
+                    .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connections)))
+                    .build();
+
+            System.out.printf("Seeding %d students, %d books, %d books per student%n",
+                              settings.students(), settings.books(), settings.booksPerStudent());
+            Dataset dataset = new Seeder(webClient).seed(settings.students(), settings.books(), settings.booksPerStudent());
+            Requests requests = new Requests(webClient, dataset);
+
+            for (Scenario scenario : settings.scenarios()) {
+                run(scenario, settings, requests, settings.warmup(), new LoadStats());
+
+                LoadStats stats = new LoadStats();
+                long start = System.nanoTime();
+                run(scenario, settings, requests, settings.duration(), stats);
+                stats.report(scenario, Duration.ofNanos(System.nanoTime() - start), settings.concurrency(), System.out);
+            }
+        } finally {
+            connections.dispose();
+            if (application != null) {
+                application.close();
+            }
+        }
+    }
+
+    private static void run(Scenario scenario, LoadTestSettings settings, Requests requests, Duration duration, LoadStats stats) {
+        int concurrency = settings.concurrency();
+        Flux<Void> load;
+        if (scenario.burstInterval() == null) {
+            long deadline = System.nanoTime() + duration.toNanos();
+            load = Flux.range(0, concurrency)
+                    .flatMap(user -> Mono.defer(() -> execute(scenario.pick(), settings, requests, stats))
+                                         .repeat(() -> System.nanoTime() < deadline), concurrency);
+        } else {
+            load = Flux.interval(Duration.ZERO, scenario.burstInterval())
+                    .take(duration)
+                    .onBackpressureDrop()
+                    .flatMap(tick -> Flux.range(0, concurrency)
+                                         .flatMap(request -> execute(scenario.pick(), settings, requests, stats)));
+        }
+        load.blockLast();
+    }
+
+    private static Mono<Void> execute(Scenario.Operation operation, LoadTestSettings settings, Requests requests, LoadStats stats) {
+        long start = System.nanoTime();
+        return operation.call().apply(requests)
+                .timeout(settings.requestTimeout())
+                .doOnNext(status -> stats.record(operation.endpoint(), System.nanoTime() - start, status.isError()))
+                .onErrorResume(e -> {
+                    stats.record(operation.endpoint(), System.nanoTime() - start, true);
+                    return Mono.empty();
+                })
+                .then();
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.springwebflux.loadtest;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Harness settings, given as {@code key=value} arguments, e.g.
+ * {@code scenario=read-heavy duration=60s concurrency=128 students=10000}.
+ *
+ * <p>Without {@code base-url} the application is started in-process; it runs against {@code r2dbc-url}
+ * (with {@code jdbc-url} for Flyway) when given, and against a throwaway Postgres container otherwise.
+ */
+record LoadTestSettings(List<Scenario> scenarios,
+                        Duration warmup,
+                        Duration duration,
+                        int concurrency,
+                        Duration requestTimeout,
+                        int students,
+                        int books,
+                        int booksPerStudent,
+                        String baseUrl,
+                        String r2dbcUrl,
+                        String jdbcUrl,
+                        String username,
+                        String password) {
+
+    static LoadTestSettings parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected key=value but got '" + arg + "'");
+            }
+            values.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+
+        String scenario = values.getOrDefault("scenario", "all");
+        return new LoadTestSettings(scenario.equals("all") ? List.of(Scenario.values()) : List.of(Scenario.of(scenario)),
+                                    duration(values.getOrDefault("warmup", "10s")),
+                                    duration(values.getOrDefault("duration", "30s")),
+                                    Integer.parseInt(values.getOrDefault("concurrency", "64")),
+                                    duration(values.getOrDefault("request-timeout", "10s")),
+                                    Integer.parseInt(values.getOrDefault("students", "1000")),
+                                    Integer.parseInt(values.getOrDefault("books", "1000")),
+                                    Integer.parseInt(values.getOrDefault("books-per-student", "3")),
+                                    values.get("base-url"),
+                                    values.get("r2dbc-url"),
+                                    values.get("jdbc-url"),
+                                    values.getOrDefault("username", "postgres"),
+                                    values.getOrDefault("password", "postgres"));
+    }
+
+    private static Duration duration(String value) {
+        return Duration.parse("PT" + value.toUpperCase());
+    }
+}
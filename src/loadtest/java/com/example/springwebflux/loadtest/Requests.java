@@ -0,0 +1,111 @@
+package com.example.springwebflux.loadtest;
+
+import com.example.springwebflux.web.dto.BookRequest;
+import com.example.springwebflux.web.dto.EnrolmentRequest;
+import com.example.springwebflux.web.dto.StudentRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * One method per endpoint the scenarios call. Every response body is read to the end, so a sample covers
+ * the full response rather than only its headers.
+ */
+@RequiredArgsConstructor
+class Requests {
+
+    static final int PAGE_SIZE = 50;
+    static final int BULK_SIZE = 100;
+
+    private final WebClient webClient;
+    private final Dataset dataset;
+
+    Mono<HttpStatusCode> studentPage() {
+        return exchange(webClient.get().uri("/api/students?limit={limit}&after={after}", PAGE_SIZE, dataset.randomStudentId() - 1));
+    }
+
+    Mono<HttpStatusCode> student() {
+        return exchange(webClient.get().uri("/api/students/{id}", dataset.randomStudentId()));
+    }
+
+    Mono<HttpStatusCode> allStudents() {
+        return exchange(webClient.get().uri("/api/students").accept(MediaType.APPLICATION_NDJSON));
+    }
+
+    Mono<HttpStatusCode> bookPage() {
+        return exchange(webClient.get().uri("/api/books?limit={limit}&after={after}", PAGE_SIZE, dataset.randomBookId() - 1));
+    }
+
+    Mono<HttpStatusCode> book() {
+        return exchange(webClient.get().uri("/api/books/{id}", dataset.randomBookId()));
+    }
+
+    Mono<HttpStatusCode> addBook() {
+        return exchange(webClient.post().uri("/api/books").bodyValue(newBook()));
+    }
+
+    Mono<HttpStatusCode> addBooks() {
+        List<BookRequest> books = new ArrayList<>(BULK_SIZE);
+        for (int i = 0; i < BULK_SIZE; i++) {
+            books.add(newBook());
+        }
+        return exchange(webClient.post().uri("/api/books/bulk")
+                                 .contentType(MediaType.APPLICATION_NDJSON)
+                                 .accept(MediaType.APPLICATION_NDJSON)
+                                 .body(Flux.fromIterable(books), BookRequest.class));
+    }
+
+    Mono<HttpStatusCode> addStudent() {
+        long suffix = ThreadLocalRandom.current().nextLong(1_000_000);
+        return exchange(webClient.post().uri("/api/students").bodyValue(new StudentRequest("First " + suffix, "Last " + suffix)));
+    }
+
+    Mono<HttpStatusCode> enrol() {
+        long[] pair = dataset.nextNewPair();
+        return exchange(webClient.post().uri("/api/students/{studentId}/books/{bookId}", pair[0], pair[1]));
+    }
+
+    Mono<HttpStatusCode> unenrol() {
+        long[] pair = dataset.nextAssignedPair();
+        return exchange(webClient.delete().uri("/api/students/{studentId}/books/{bookId}", pair[0], pair[1]));
+    }
+
+    /**
+     * Bulk enrolment of mostly new pairs, with one in ten pairs repeated from the seeded data.
+     */
+    Mono<HttpStatusCode> enrolAll() {
+        List<EnrolmentRequest> pairs = new ArrayList<>(BULK_SIZE);
+        for (int i = 0; i < BULK_SIZE; i++) {
+            if (i % 10 == 0) {
+                pairs.add(new EnrolmentRequest(dataset.randomStudentId(), dataset.randomBookId()));
+            } else {
+                long[] pair = dataset.nextNewPair();
+                pairs.add(new EnrolmentRequest(pair[0], pair[1]));
+            }
+        }
+        return exchange(webClient.post().uri("/api/students/books")
+                                 .contentType(MediaType.APPLICATION_NDJSON)
+                                 .accept(MediaType.APPLICATION_NDJSON)
+                                 .body(Flux.fromIterable(pairs), EnrolmentRequest.class));
+    }
+
+    private static BookRequest newBook() {
+        long suffix = ThreadLocalRandom.current().nextLong(1_000_000);
+        return new BookRequest("Title " + suffix, "Author " + suffix);
+    }
+
+    private static Mono<HttpStatusCode> exchange(WebClient.RequestHeadersSpec<?> request) {
+        return request.exchangeToMono(response -> response.bodyToFlux(DataBuffer.class)
+                                                          .doOnNext(DataBufferUtils::release)
+                                                          .then(Mono.just(response.statusCode())));
+    }
+}
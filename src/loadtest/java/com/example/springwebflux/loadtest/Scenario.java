@@ -0,0 +1,74 @@
+package com.example.springwebflux.loadtest;
+
+import org.springframework.http.HttpStatusCode;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * Request mixes driven by the harness. Steady scenarios keep {@code concurrency} requests in flight for the
+ * whole run; burst scenarios fire {@code concurrency} requests at once every {@code burstInterval}.
+ */
+enum Scenario {
+
+    READ_HEAVY(null,
+               new Operation("GET /api/students?limit", 25, Requests::studentPage),
+               new Operation("GET /api/students/{id}", 30, Requests::student),
+               new Operation("GET /api/books?limit", 15, Requests::bookPage),
+               new Operation("GET /api/books/{id}", 20, Requests::book),
+               new Operation("GET /api/students", 1, Requests::allStudents),
+               new Operation("POST /api/books", 5, Requests::addBook),
+               new Operation("POST /api/students/{id}/books/{bookId}", 4, Requests::enrol)),
+
+    WRITE_HEAVY(null,
+                new Operation("POST /api/books", 25, Requests::addBook),
+                new Operation("POST /api/students", 25, Requests::addStudent),
+                new Operation("POST /api/books/bulk", 5, Requests::addBooks),
+                new Operation("POST /api/students/{id}/books/{bookId}", 20, Requests::enrol),
+                new Operation("DELETE /api/students/{id}/books/{bookId}", 10, Requests::unenrol),
+                new Operation("GET /api/students/{id}", 15, Requests::student)),
+
+    ENROLMENT_BURST(Duration.ofSeconds(1),
+                    new Operation("POST /api/students/books", 70, Requests::enrolAll),
+                    new Operation("POST /api/students/{id}/books/{bookId}", 10, Requests::enrol),
+                    new Operation("GET /api/students/{id}", 20, Requests::student));
+
+    private final Duration burstInterval;
+    private final List<Operation> operations;
+    private final int totalWeight;
+
+    Scenario(Duration burstInterval, Operation... operations) {
+        this.burstInterval = burstInterval;
+        this.operations = List.of(operations);
+        this.totalWeight = this.operations.stream().mapToInt(Operation::weight).sum();
+    }
+
+    static Scenario of(String name) {
+        return valueOf(name.toUpperCase().replace('-', '_'));
+    }
+
+    String label() {
+        return name().toLowerCase().replace('_', '-');
+    }
+
+    Duration burstInterval() {
+        return burstInterval;
+    }
+
+    Operation pick() {
+        int ticket = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Operation operation : operations) {
+            ticket -= operation.weight();
+            if (ticket < 0) {
+                return operation;
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    record Operation(String endpoint, int weight, Function<Requests, Mono<HttpStatusCode>> call) {
+    }
+}
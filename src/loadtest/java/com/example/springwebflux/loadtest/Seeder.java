@@ -0,0 +1,57 @@
+package com.example.springwebflux.loadtest;
+
+import com.example.springwebflux.web.dto.BookRequest;
+import com.example.springwebflux.web.dto.EnrolmentRequest;
+import com.example.springwebflux.web.dto.StudentRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+/**
+ * Seeds the data volumes from the settings through the bulk endpoints, so seeding itself goes through
+ * the same code paths as production imports.
+ */
+@RequiredArgsConstructor
+class Seeder {
+
+    private final WebClient webClient;
+
+    Dataset seed(int students, int books, int booksPerStudent) {
+        List<Long> bookIds = post("/api/books/bulk",
+                                  Flux.range(0, books).map(i -> new BookRequest("Title " + i, "Author " + i)),
+                                  BookRequest.class);
+        List<Long> spareBookIds = post("/api/books/bulk",
+                                       Flux.range(0, books).map(i -> new BookRequest("Spare title " + i, "Spare author " + i)),
+                                       BookRequest.class);
+        List<Long> studentIds = post("/api/students/bulk",
+                                     Flux.range(0, students).map(i -> new StudentRequest("First " + i, "Last " + i)),
+                                     StudentRequest.class);
+
+        Flux<EnrolmentRequest> enrolments = Flux.range(0, students * booksPerStudent)
+                .map(i -> new EnrolmentRequest(studentIds.get(i / booksPerStudent),
+                                               bookIds.get((i / booksPerStudent + i % booksPerStudent) % bookIds.size())));
+        webClient.post().uri("/api/students/books")
+                 .contentType(MediaType.APPLICATION_NDJSON)
+                 .accept(MediaType.APPLICATION_NDJSON)
+                 .body(enrolments, EnrolmentRequest.class)
+                 .retrieve()
+                 .bodyToFlux(Object.class)
+                 .blockLast();
+
+        return new Dataset(studentIds, bookIds, spareBookIds);
+    }
+
+    private <T> List<Long> post(String uri, Flux<T> body, Class<T> type) {
+        return webClient.post().uri(uri)
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .body(body, type)
+                        .retrieve()
+                        .bodyToFlux(Long.class)
+                        .collectList()
+                        .block();
+    }
+}
@@ -2,12 +2,14 @@ package com.example.springwebflux;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import org.springframework.data.r2dbc.config.EnableR2dbcAuditing;
 import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
 
 @EnableR2dbcRepositories
 @EnableR2dbcAuditing
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class SpringWebfluxApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,47 @@
+package com.example.springwebflux.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Admission control in front of the API. Each request is matched to the most specific {@code routes} pattern and
+ * charged to its client, the remote address. {@code clientHeader} names a header to use instead; it is trusted as is,
+ * so only set it behind a proxy that overwrites the header for every request, or clients could dodge their limit by
+ * rotating it. Buckets of clients idle for {@code clientIdleTimeout} are dropped, at most {@code maxClients} are kept.
+ */
+@ConfigurationProperties(prefix = "app.admission")
+public record AdmissionProperties(@DefaultValue("false") boolean enabled,
+                                  @DefaultValue("") String clientHeader,
+                                  @DefaultValue("100000") long maxClients,
+                                  @DefaultValue("10m") Duration clientIdleTimeout,
+                                  @DefaultValue Concurrency concurrency,
+                                  @DefaultValue Map<String, Route> routes) {
+
+    /**
+     * One limit on in-flight requests shared by all routes that are {@code concurrencyLimited}, as they draw on the
+     * same pools. Every {@code adjustInterval} it is multiplied by {@code backoffRatio} if the average connection
+     * wait exceeded {@code latencyThreshold}, or raised by one if it was reached while the wait stayed below.
+     */
+    public record Concurrency(@DefaultValue("20") int initialLimit,
+                              @DefaultValue("4") int minLimit,
+                              @DefaultValue("200") int maxLimit,
+                              @DefaultValue("20ms") Duration latencyThreshold,
+                              @DefaultValue("250ms") Duration adjustInterval,
+                              @DefaultValue("0.9") double backoffRatio) {
+    }
+
+    /**
+     * Requests per second ({@code rate}) and burst per client on requests matching {@code pattern} and, when given,
+     * one of {@code methods}. A zero rate disables the per-client limit.
+     */
+    public record Route(String pattern,
+                        @DefaultValue List<String> methods,
+                        @DefaultValue("0") double rate,
+                        @DefaultValue("0") int burst,
+                        @DefaultValue("true") boolean concurrencyLimited) {
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.springwebflux.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "app.book-cache")
+public record BookCacheProperties(@DefaultValue("10000") long maximumSize,
+                                  @DefaultValue("10m") Duration expireAfterWrite) {
+}
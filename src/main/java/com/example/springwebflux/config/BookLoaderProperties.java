@@ -0,0 +1,15 @@
+package com.example.springwebflux.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Book ids missed by the cache within {@code window} of each other are loaded with one query, at most
+ * {@code maxBatchSize} ids each. A zero window loads every miss on its own.
+ */
+@ConfigurationProperties(prefix = "app.book-loader")
+public record BookLoaderProperties(@DefaultValue("2ms") Duration window,
+                                   @DefaultValue("500") int maxBatchSize) {
+}
@@ -0,0 +1,8 @@
+package com.example.springwebflux.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "app.bulk")
+public record BulkProperties(@DefaultValue("500") int chunkSize) {
+}
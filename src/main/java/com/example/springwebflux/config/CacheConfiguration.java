@@ -0,0 +1,23 @@
+package com.example.springwebflux.config;
+
+import com.example.springwebflux.domain.Book;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class CacheConfiguration {
+
+    @Bean
+    public AsyncCache<Long, Book> bookAsyncCache(BookCacheProperties properties, MeterRegistry meterRegistry) {
+        AsyncCache<Long, Book> cache = Caffeine.newBuilder()
+                                               .maximumSize(properties.maximumSize())
+                                               .expireAfterWrite(properties.expireAfterWrite())
+                                               .recordStats()
+                                               .buildAsync();
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, "books");
+    }
+}
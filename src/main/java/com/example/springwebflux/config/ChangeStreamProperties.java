@@ -0,0 +1,15 @@
+package com.example.springwebflux.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "app.changes")
+public record ChangeStreamProperties(@DefaultValue("app_changes") String channel,
+                                     @DefaultValue("256") int subscriberBufferSize,
+                                     @DefaultValue("15s") Duration heartbeatInterval,
+                                     @DefaultValue("1s") Duration minReconnectBackoff,
+                                     @DefaultValue("30s") Duration maxReconnectBackoff,
+                                     @DefaultValue("5s") Duration shutdownTimeout) {
+}
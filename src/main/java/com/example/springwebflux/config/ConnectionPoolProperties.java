@@ -0,0 +1,21 @@
+package com.example.springwebflux.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Pool sizing per application instance; {@code maxSize} times the number of replicas has to stay
+ * below the Postgres {@code max_connections} setting.
+ */
+@ConfigurationProperties(prefix = "app.r2dbc.pool")
+public record ConnectionPoolProperties(@DefaultValue("5") int initialSize,
+                                       @DefaultValue("20") int maxSize,
+                                       @DefaultValue("30m") Duration maxIdleTime,
+                                       @DefaultValue("1h") Duration maxLifeTime,
+                                       @DefaultValue("5s") Duration maxAcquireTime,
+                                       @DefaultValue("5s") Duration maxCreateConnectionTime,
+                                       @DefaultValue("select 1") String validationQuery,
+                                       @DefaultValue("30s") Duration backgroundEvictionInterval) {
+}
@@ -0,0 +1,28 @@
+package com.example.springwebflux.config;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Average time callers waited for a pooled connection, collected across all pools and taken, and reset, by whoever
+ * adapts to it. A saturated pool shows up here well before the statements themselves get slower.
+ */
+public class DatabaseLatency {
+
+    private final LongAdder waitedNanos = new LongAdder();
+    private final LongAdder acquisitions = new LongAdder();
+
+    public void record(long nanos) {
+        waitedNanos.add(nanos);
+        acquisitions.increment();
+    }
+
+    /**
+     * The average wait since the previous call, or {@code null} when no connection was acquired in between.
+     */
+    public Duration drain() {
+        long count = acquisitions.sumThenReset();
+        long nanos = waitedNanos.sumThenReset();
+        return count == 0 ? null : Duration.ofNanos(nanos / count);
+    }
+}
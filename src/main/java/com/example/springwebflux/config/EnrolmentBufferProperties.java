@@ -0,0 +1,18 @@
+package com.example.springwebflux.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Write-behind mode for single enrolment changes. Pending pairs are flushed every {@code flushInterval} or as soon as
+ * {@code maxBatchSize} of them are waiting; once {@code capacity} are waiting, new changes wait for the next flush.
+ */
+@ConfigurationProperties(prefix = "app.enrolment-buffer")
+public record EnrolmentBufferProperties(@DefaultValue("false") boolean enabled,
+                                        @DefaultValue("10000") int capacity,
+                                        @DefaultValue("500") int maxBatchSize,
+                                        @DefaultValue("20ms") Duration flushInterval,
+                                        @DefaultValue("10s") Duration shutdownTimeout) {
+}
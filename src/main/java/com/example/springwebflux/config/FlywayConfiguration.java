@@ -6,10 +6,16 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.Map;
+
 @Configuration
 @EnableConfigurationProperties(FlywayProperties.class)
 public class FlywayConfiguration {
 
+    /**
+     * Flyway holds its Postgres lock in an open transaction by default, which a
+     * {@code create index concurrently} migration would wait on forever.
+     */
     @Bean(initMethod = "migrate")
     public Flyway flyway(FlywayProperties properties) {
         return new Flyway(
@@ -19,6 +25,7 @@ public class FlywayConfiguration {
                               properties.getUser(),
                               properties.getPassword()
                       )
+                      .configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
         );
     }
 }
@@ -0,0 +1,76 @@
+package com.example.springwebflux.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.Wrapped;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+/**
+ * Records how long callers wait for a pooled connection, as a timer and into {@link DatabaseLatency}. Connections
+ * are handed out by {@code connections}, which is either the pool itself or a decorator around it. Pool occupancy
+ * gauges ({@code r2dbc.pool.*}) are bound by Spring Boot, which unwraps this factory to reach the
+ * {@link ConnectionPool}.
+ */
+public class MeteredConnectionFactory implements ConnectionFactory, Wrapped<ConnectionPool>, Disposable {
+
+    private static final String ACQUIRE_TIMER = "r2dbc.pool.acquire";
+
+    private final ConnectionPool pool;
+    private final ConnectionFactory connections;
+    private final MeterRegistry meterRegistry;
+    private final DatabaseLatency databaseLatency;
+
+    public MeteredConnectionFactory(ConnectionPool pool,
+                                    ConnectionFactory connections,
+                                    MeterRegistry meterRegistry,
+                                    DatabaseLatency databaseLatency) {
+        this.pool = pool;
+        this.connections = connections;
+        this.meterRegistry = meterRegistry;
+        this.databaseLatency = databaseLatency;
+    }
+
+    @Override
+    public Mono<Connection> create() {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return Mono.from(connections.create())
+                       .doOnSuccess(connection -> databaseLatency.record(sample.stop(timer("success"))))
+                       .doOnError(error -> databaseLatency.record(sample.stop(timer("error"))))
+                       .doOnCancel(() -> sample.stop(timer("cancelled")));
+        });
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return pool.getMetadata();
+    }
+
+    @Override
+    public ConnectionPool unwrap() {
+        return pool;
+    }
+
+    @Override
+    public void dispose() {
+        pool.dispose();
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return pool.isDisposed();
+    }
+
+    private Timer timer(String outcome) {
+        return Timer.builder(ACQUIRE_TIMER)
+                    .description("Time spent waiting for a connection from the pool.")
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+    }
+}
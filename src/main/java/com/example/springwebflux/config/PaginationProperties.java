@@ -0,0 +1,13 @@
+package com.example.springwebflux.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "app.pagination")
+public record PaginationProperties(@DefaultValue("1000") int maxLimit,
+                                   @DefaultValue("500") int streamPageSize) {
+
+    public int clamp(int limit) {
+        return Math.max(1, Math.min(limit, maxLimit));
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.springwebflux.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.proxy.core.QueryExecutionInfo;
+import io.r2dbc.proxy.listener.ProxyExecutionListener;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Records a timer and a row count per executed statement, tagged with a short statement name rather than the SQL.
+ * Hand-written statements name themselves in a leading block comment, such as {@code BookRepository.findPage};
+ * statements generated by Spring Data are named after their verb and table, such as {@code insert book}.
+ */
+class QueryMetricsListener implements ProxyExecutionListener {
+
+    private static final Pattern NAME = Pattern.compile("^\\s*/\\*\\s*([\\w.]+)\\s*\\*/");
+    private static final Pattern VERB_TABLE = Pattern.compile(
+            "^\\s*(select|insert|update|delete)\\b(?:.*?\\b(?:from|into)\\b)?\\s*\"?(\\w+)",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private final MeterRegistry meterRegistry;
+
+    QueryMetricsListener(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void afterQuery(QueryExecutionInfo execution) {
+        String query = name(execution);
+
+        Timer.builder("r2dbc.query")
+             .description("Execution time of SQL statements, including reading their results.")
+             .tag("query", query)
+             .tag("outcome", execution.isSuccess() ? "success" : "error")
+             .publishPercentiles(0.5, 0.99)
+             .register(meterRegistry)
+             .record(execution.getExecuteDuration());
+
+        DistributionSummary.builder("r2dbc.query.rows")
+                           .description("Rows returned by SQL statements.")
+                           .tag("query", query)
+                           .register(meterRegistry)
+                           .record(execution.getCurrentResultCount());
+    }
+
+    static String name(QueryExecutionInfo execution) {
+        return execution.getQueries().stream()
+                        .map(query -> name(query.getQuery()))
+                        .distinct()
+                        .collect(Collectors.joining("; "));
+    }
+
+    static String name(String sql) {
+        Matcher name = NAME.matcher(sql);
+        if (name.find()) {
+            return name.group(1);
+        }
+        Matcher verbTable = VERB_TABLE.matcher(sql);
+        if (verbTable.find()) {
+            return verbTable.group(1).toLowerCase(Locale.ROOT) + " " + verbTable.group(2).toLowerCase(Locale.ROOT);
+        }
+        return "other";
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.springwebflux.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.observation.ObservationRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.proxy.ProxyConnectionFactory;
+import io.r2dbc.proxy.observation.ObservationProxyExecutionListener;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.Option;
+import org.springframework.boot.actuate.metrics.r2dbc.ConnectionPoolMetrics;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Configuration
+@EnableConfigurationProperties(R2dbcProperties.class)
+public class R2dbcConfiguration {
+
+    private static final Option<Integer> PREPARED_STATEMENT_CACHE_QUERIES = Option.valueOf("preparedStatementCacheQueries");
+
+    /**
+     * The primary's pool alone, or with {@code app.r2dbc.replicas.urls} set, a {@link RoutingConnectionFactory} over
+     * the primary's and one pool per replica. Spring Boot only binds pool gauges for a factory it can unwrap to a
+     * single pool, so in the routing case they are bound here, tagged with each pool's name.
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionFactory connectionFactory(R2dbcProperties properties,
+                                               ConnectionPoolProperties poolProperties,
+                                               R2dbcDriverProperties driverProperties,
+                                               ReplicaProperties replicaProperties,
+                                               MeterRegistry meterRegistry,
+                                               ObservationRegistry observationRegistry,
+                                               DatabaseLatency databaseLatency) {
+        String name = poolName(properties);
+        MeteredConnectionFactory primary = pool(properties.getUrl(), name, properties, poolProperties, driverProperties,
+                                                meterRegistry, observationRegistry, databaseLatency);
+        if (replicaProperties.urls().isEmpty()) {
+            return primary;
+        }
+
+        Map<String, ConnectionFactory> replicas = new LinkedHashMap<>();
+        bindPoolMetrics(primary, name, meterRegistry);
+        for (int i = 0; i < replicaProperties.urls().size(); i++) {
+            String route = "replica-" + i;
+            MeteredConnectionFactory replica = pool(replicaProperties.urls().get(i), name + "-" + route,
+                                                    properties, poolProperties, driverProperties, meterRegistry,
+                                                    observationRegistry, databaseLatency);
+            bindPoolMetrics(replica, name + "-" + route, meterRegistry);
+            replicas.put(route, replica);
+        }
+        return new RoutingConnectionFactory(primary, replicas, replicaProperties, poolProperties.validationQuery(), meterRegistry);
+    }
+
+    @Bean
+    public DatabaseLatency databaseLatency() {
+        return new DatabaseLatency();
+    }
+
+    /**
+     * Statement observations are there for their spans. Their timers would duplicate {@code r2dbc.query} from
+     * {@link QueryMetricsListener} under other tag keys, which Prometheus does not accept for one name.
+     */
+    @Bean
+    public MeterFilter queryObservationMeterFilter() {
+        return MeterFilter.deny(id -> id.getName().startsWith("r2dbc.query") && id.getTag("r2dbc.connection") != null);
+    }
+
+    private static MeteredConnectionFactory pool(String url,
+                                                 String name,
+                                                 R2dbcProperties properties,
+                                                 ConnectionPoolProperties poolProperties,
+                                                 R2dbcDriverProperties driverProperties,
+                                                 MeterRegistry meterRegistry,
+                                                 ObservationRegistry observationRegistry,
+                                                 DatabaseLatency databaseLatency) {
+        ConnectionFactory connectionFactory = ConnectionFactoryBuilder.withUrl(url)
+                .username(properties.getUsername())
+                .password(properties.getPassword())
+                .configure(options -> {
+                    options.option(PREPARED_STATEMENT_CACHE_QUERIES, driverProperties.preparedStatementCacheQueries());
+                    properties.getProperties().forEach((key, value) -> options.option(Option.valueOf(key), value));
+                })
+                .build();
+
+        ConnectionPool pool = new ConnectionPool(ConnectionPoolConfiguration.builder(connectionFactory)
+                .name(name)
+                .initialSize(poolProperties.initialSize())
+                .maxSize(poolProperties.maxSize())
+                .maxIdleTime(poolProperties.maxIdleTime())
+                .maxLifeTime(poolProperties.maxLifeTime())
+                .maxAcquireTime(poolProperties.maxAcquireTime())
+                .maxCreateConnectionTime(poolProperties.maxCreateConnectionTime())
+                .validationQuery(poolProperties.validationQuery())
+                .backgroundEvictionInterval(poolProperties.backgroundEvictionInterval())
+                .build());
+
+        ConnectionFactory connections = pool;
+        if (driverProperties.queryMetricsEnabled() || driverProperties.queryObservationsEnabled()) {
+            ProxyConnectionFactory.Builder proxy = ProxyConnectionFactory.builder(pool);
+            if (driverProperties.queryMetricsEnabled()) {
+                proxy.listener(new QueryMetricsListener(meterRegistry));
+            }
+            if (driverProperties.queryObservationsEnabled()) {
+                proxy.listener(new ObservationProxyExecutionListener(observationRegistry, pool, url));
+            }
+            connections = proxy.build();
+        }
+        return new MeteredConnectionFactory(pool, connections, meterRegistry, databaseLatency);
+    }
+
+    private static void bindPoolMetrics(MeteredConnectionFactory connectionFactory, String name, MeterRegistry meterRegistry) {
+        new ConnectionPoolMetrics(connectionFactory.unwrap(), name, Tags.empty()).bindTo(meterRegistry);
+    }
+
+    private static String poolName(R2dbcProperties properties) {
+        if (properties.getName() != null) {
+            return properties.getName();
+        }
+        Object database = ConnectionFactoryOptions.parse(properties.getUrl()).getValue(ConnectionFactoryOptions.DATABASE);
+        return database != null ? database.toString() : "r2dbc";
+    }
+}
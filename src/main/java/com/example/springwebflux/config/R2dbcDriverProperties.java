@@ -0,0 +1,15 @@
+package com.example.springwebflux.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * {@code preparedStatementCacheQueries} bounds the number of prepared statements r2dbc-postgresql keeps
+ * per connection: {@code -1} is unbounded, {@code 0} disables the cache. {@code queryObservationsEnabled} opens an
+ * observation, and so a span, per statement under the observation of the request that issued it.
+ */
+@ConfigurationProperties(prefix = "app.r2dbc")
+public record R2dbcDriverProperties(@DefaultValue("256") int preparedStatementCacheQueries,
+                                    @DefaultValue("true") boolean queryMetricsEnabled,
+                                    @DefaultValue("true") boolean queryObservationsEnabled) {
+}
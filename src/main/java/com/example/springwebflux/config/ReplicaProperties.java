@@ -0,0 +1,18 @@
+package com.example.springwebflux.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Read replicas, reached with the primary's credentials and pool settings. Without {@code urls} every query goes
+ * to {@code spring.r2dbc.url}. Each replica runs the pool's validation query every {@code healthCheckInterval}; one
+ * that fails it, or fails to hand out a connection, gets no reads until it passes again.
+ */
+@ConfigurationProperties(prefix = "app.r2dbc.replicas")
+public record ReplicaProperties(@DefaultValue List<String> urls,
+                                @DefaultValue("10s") Duration healthCheckInterval,
+                                @DefaultValue("2s") Duration healthCheckTimeout) {
+}
@@ -0,0 +1,173 @@
+package com.example.springwebflux.config;
+
+import com.example.springwebflux.repository.DatabaseRoute;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Result;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.r2dbc.connection.lookup.AbstractRoutingConnectionFactory;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out replica connections, round robin over the healthy replicas, to subscribers that selected
+ * {@link DatabaseRoute#REPLICA} outside a transaction, and primary connections to everything else. A replica that
+ * cannot hand out a connection is marked unhealthy and the request falls back to the primary; the periodic health
+ * check brings it back.
+ */
+@Slf4j
+public class RoutingConnectionFactory extends AbstractRoutingConnectionFactory implements Disposable {
+
+    static final String PRIMARY = "primary";
+
+    private static final String CONNECTIONS_COUNTER = "r2dbc.route.connections";
+    private static final String HEALTHY_GAUGE = "r2dbc.route.healthy";
+
+    private final ConnectionFactory primary;
+    private final Map<String, ConnectionFactory> replicas;
+    private final List<String> routes;
+    private final ReplicaProperties properties;
+    private final String validationQuery;
+    private final MeterRegistry meterRegistry;
+    private final Set<String> healthy = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger next = new AtomicInteger();
+
+    private Disposable healthChecks;
+
+    public RoutingConnectionFactory(ConnectionFactory primary,
+                                    Map<String, ConnectionFactory> replicas,
+                                    ReplicaProperties properties,
+                                    String validationQuery,
+                                    MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.routes = List.copyOf(replicas.keySet());
+        this.properties = properties;
+        this.validationQuery = validationQuery;
+        this.meterRegistry = meterRegistry;
+
+        Map<String, ConnectionFactory> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetConnectionFactories(targets);
+        setDefaultTargetConnectionFactory(primary);
+
+        healthy.addAll(routes);
+        routes.forEach(route -> Gauge.builder(HEALTHY_GAUGE, healthy, set -> set.contains(route) ? 1 : 0)
+                                     .description("Whether the replica currently receives reads.")
+                                     .tag("route", route)
+                                     .register(meterRegistry));
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        healthChecks = Flux.interval(properties.healthCheckInterval())
+                           .onBackpressureDrop()
+                           .concatMap(tick -> Flux.fromIterable(replicas.entrySet())
+                                                  .flatMap(replica -> check(replica.getKey(), replica.getValue())))
+                           .subscribe();
+    }
+
+    @Override
+    public Mono<Connection> create() {
+        return determineCurrentLookupKey().flatMap(route -> connect((String) route));
+    }
+
+    @Override
+    protected Mono<Object> determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.forCurrentTransaction()
+                                                .<Object>map(transaction -> PRIMARY)
+                                                .onErrorResume(NoTransactionException.class,
+                                                               e -> Mono.deferContextual(context -> Mono.just(route(context))));
+    }
+
+    @Override
+    public void dispose() {
+        if (healthChecks != null) {
+            healthChecks.dispose();
+        }
+        List<ConnectionFactory> all = new ArrayList<>(replicas.values());
+        all.add(primary);
+        all.stream()
+           .filter(Disposable.class::isInstance)
+           .forEach(connectionFactory -> ((Disposable) connectionFactory).dispose());
+    }
+
+    private String route(ContextView context) {
+        if (context.getOrDefault(DatabaseRoute.class, DatabaseRoute.PRIMARY) != DatabaseRoute.REPLICA) {
+            return PRIMARY;
+        }
+        int start = Math.floorMod(next.getAndIncrement(), routes.size());
+        for (int i = 0; i < routes.size(); i++) {
+            String replica = routes.get((start + i) % routes.size());
+            if (healthy.contains(replica)) {
+                return replica;
+            }
+        }
+        return PRIMARY;
+    }
+
+    private Mono<Connection> connect(String route) {
+        if (PRIMARY.equals(route)) {
+            return Mono.<Connection>from(primary.create())
+                       .doOnSuccess(connection -> counter(route, "success").increment())
+                       .doOnError(error -> counter(route, "error").increment());
+        }
+        return Mono.<Connection>from(replicas.get(route).create())
+                   .doOnSuccess(connection -> counter(route, "success").increment())
+                   .onErrorResume(error -> {
+                       counter(route, "failover").increment();
+                       markDown(route, error);
+                       return connect(PRIMARY);
+                   });
+    }
+
+    private Mono<Void> check(String route, ConnectionFactory replica) {
+        return Mono.usingWhen(replica.create(),
+                              connection -> Flux.from(connection.createStatement(validationQuery).execute())
+                                                .flatMap(Result::getRowsUpdated)
+                                                .then(),
+                              Connection::close)
+                   .timeout(properties.healthCheckTimeout())
+                   .doOnSuccess(ignored -> markUp(route))
+                   .onErrorResume(error -> {
+                       markDown(route, error);
+                       return Mono.empty();
+                   });
+    }
+
+    private void markUp(String route) {
+        if (healthy.add(route)) {
+            log.info("Replica {} is healthy again, resuming reads", route);
+        }
+    }
+
+    private void markDown(String route, Throwable error) {
+        if (healthy.remove(route)) {
+            log.warn("Replica {} is unavailable, reading from the primary until it recovers: {}", route, error.toString());
+        }
+    }
+
+    private Counter counter(String route, String outcome) {
+        return Counter.builder(CONNECTIONS_COUNTER)
+                      .description("Connections handed out per route; failover counts replica attempts sent to the primary.")
+                      .tag("route", route)
+                      .tag("outcome", outcome)
+                      .register(meterRegistry);
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.springwebflux.config;
+
+import com.example.springwebflux.web.codec.MediaTypes;
+import com.example.springwebflux.web.codec.SmileEncoder;
+import com.example.springwebflux.web.codec.StudentRowsEncoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebConfiguration implements WebFluxConfigurer {
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Smile uses a copy of the JSON mapper, so both formats share modules and features.
+     */
+    @Override
+    public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+        ObjectMapper smileMapper = objectMapper.copyWith(new SmileFactory());
+        configurer.defaultCodecs().jackson2SmileEncoder(new SmileEncoder(smileMapper));
+        configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper,
+                                                                                MediaTypes.APPLICATION_SMILE,
+                                                                                MediaTypes.APPLICATION_STREAM_SMILE));
+        configurer.customCodecs().register(new StudentRowsEncoder(objectMapper, smileMapper));
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.springwebflux.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A book found by search, with its word similarity to the query between 0 and 1.
+ */
+@AllArgsConstructor
+@Getter
+public class BookMatch {
+
+    private Long id;
+
+    private String title;
+
+    private String author;
+
+    private Float rank;
+}
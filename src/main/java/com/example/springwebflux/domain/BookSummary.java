@@ -0,0 +1,18 @@
+package com.example.springwebflux.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Projection of a book row without its audit columns.
+ */
+@AllArgsConstructor
+@Getter
+public class BookSummary {
+
+    private Long id;
+
+    private String title;
+
+    private String author;
+}
@@ -0,0 +1,51 @@
+package com.example.springwebflux.domain;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A committed change to a book, a student or an enrolment. Enrolments are identified by their
+ * student and book ids, everything else by its own id.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ChangeEvent {
+
+    public enum Entity {
+        BOOK, STUDENT, ENROLMENT
+    }
+
+    public enum Action {
+        CREATED, DELETED
+    }
+
+    private Entity entity;
+
+    private Action action;
+
+    private Long id;
+
+    private Long studentId;
+
+    private Long bookId;
+
+    public static ChangeEvent created(Entity entity, Long id) {
+        return new ChangeEvent(entity, Action.CREATED, id, null, null);
+    }
+
+    public static ChangeEvent deleted(Entity entity, Long id) {
+        return new ChangeEvent(entity, Action.DELETED, id, null, null);
+    }
+
+    public static ChangeEvent enrolled(Long studentId, Long bookId) {
+        return new ChangeEvent(Entity.ENROLMENT, Action.CREATED, null, studentId, bookId);
+    }
+
+    public static ChangeEvent unenrolled(Long studentId, Long bookId) {
+        return new ChangeEvent(Entity.ENROLMENT, Action.DELETED, null, studentId, bookId);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.springwebflux.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Outcome of assigning or unassigning a single book; {@code id} is the student_book row id when one was
+ * inserted or deleted.
+ */
+@AllArgsConstructor
+@Getter
+public class Enrolment {
+
+    private Long id;
+
+    private EnrolmentStatus status;
+}
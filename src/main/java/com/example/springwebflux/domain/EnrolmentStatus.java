@@ -0,0 +1,10 @@
+package com.example.springwebflux.domain;
+
+public enum EnrolmentStatus {
+    ASSIGNED,
+    ALREADY_ASSIGNED,
+    UNASSIGNED,
+    NOT_ASSIGNED,
+    STUDENT_NOT_FOUND,
+    BOOK_NOT_FOUND
+}
@@ -34,12 +34,11 @@ public class Student {
         this.lastName = lastName;
     }
 
-    public List<Book> getBooks() {
-        return Collections.unmodifiableList(books);
-    }
-
+    /**
+     * Wraps the list once here rather than on every {@link #getBooks()} call.
+     */
     public Student withBooks(List<Book> books) {
-        this.books = books;
+        this.books = Collections.unmodifiableList(books);
         return this;
     }
 }
@@ -0,0 +1,31 @@
+package com.example.springwebflux.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row of the student/book join: a student with one of its books, or with all book columns null when it has none.
+ * Rows of the same student are consecutive.
+ */
+@AllArgsConstructor
+@Getter
+public class StudentBookRow {
+
+    private Long studentId;
+
+    private String firstName;
+
+    private String lastName;
+
+    private Long bookId;
+
+    private String title;
+
+    private String author;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime lastModifiedAt;
+}
@@ -0,0 +1,18 @@
+package com.example.springwebflux.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Projection of a student row without its books.
+ */
+@AllArgsConstructor
+@Getter
+public class StudentSummary {
+
+    private Long id;
+
+    private String firstName;
+
+    private String lastName;
+}
@@ -0,0 +1,20 @@
+package com.example.springwebflux.repository;
+
+import com.example.springwebflux.domain.Book;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+public interface BookBatchRepository {
+
+    /**
+     * Inserts all books as a single batched statement and emits the generated ids in input order.
+     */
+    Flux<Long> insertAll(List<Book> books);
+
+    /**
+     * Deletes all books with the given ids in a single statement, their enrolments included by the cascading
+     * foreign keys, and emits the ids that existed.
+     */
+    Flux<Long> removeAll(List<Long> ids);
+}
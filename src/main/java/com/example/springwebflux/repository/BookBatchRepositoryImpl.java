@@ -0,0 +1,56 @@
+package com.example.springwebflux.repository;
+
+import com.example.springwebflux.domain.Book;
+import io.r2dbc.spi.Statement;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RequiredArgsConstructor
+class BookBatchRepositoryImpl implements BookBatchRepository {
+
+    private static final String INSERT = "/* BookRepository.insertAll */ " +
+            "insert into book (title, author, created_at, last_modified_at) values ($1, $2, $3, $4)";
+
+    private static final String REMOVE_ALL = "/* BookRepository.removeAll */ " +
+            "delete from book where id = any($1) returning id";
+
+    private final DatabaseClient databaseClient;
+
+    @Override
+    public Flux<Long> insertAll(List<Book> books) {
+        if (books.isEmpty()) {
+            return Flux.empty();
+        }
+        return databaseClient.inConnectionMany(connection -> {
+            Statement statement = connection.createStatement(INSERT)
+                                            .returnGeneratedValues("id");
+            LocalDateTime now = LocalDateTime.now();
+            for (int i = 0; i < books.size(); i++) {
+                Book book = books.get(i);
+                Statements.bind(statement, 0, book.getTitle(), String.class);
+                Statements.bind(statement, 1, book.getAuthor(), String.class);
+                statement.bind(2, now);
+                statement.bind(3, now);
+                if (i < books.size() - 1) {
+                    statement.add();
+                }
+            }
+            return Statements.generatedIds(statement);
+        });
+    }
+
+    @Override
+    public Flux<Long> removeAll(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Flux.empty();
+        }
+        return databaseClient.sql(REMOVE_ALL)
+                             .bind(0, ids.toArray(Long[]::new))
+                             .map(row -> row.get("id", Long.class))
+                             .all();
+    }
+}
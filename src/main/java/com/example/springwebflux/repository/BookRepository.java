@@ -1,9 +1,46 @@
 package com.example.springwebflux.repository;
 
 import com.example.springwebflux.domain.Book;
+import com.example.springwebflux.domain.BookMatch;
+import com.example.springwebflux.domain.BookSummary;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
 
 @Repository
-public interface BookRepository extends R2dbcRepository<Book, Long> {
+public interface BookRepository extends R2dbcRepository<Book, Long>, BookBatchRepository {
+
+    @Query("/* BookRepository.findPage */ " +
+           "select * from book b where b.id > :after order by b.id limit :limit")
+    Flux<Book> findPage(@Param("after") Long after, @Param("limit") int limit);
+
+    @Query("/* BookRepository.findSummaryPage */ " +
+           "select b.id, b.title, b.author from book b where b.id > :after order by b.id limit :limit")
+    Flux<BookSummary> findSummaryPage(@Param("after") Long after, @Param("limit") int limit);
+
+    /**
+     * Binds the ids as one array parameter, so every batch size shares a single prepared statement.
+     */
+    @Query("/* BookRepository.findAllByIds */ " +
+           "select * from book b where b.id = any(:ids)")
+    Flux<Book> findAllByIds(@Param("ids") Long[] ids);
+
+    /**
+     * Books whose title and author contain words similar to the query, best match first. Pages continue after
+     * the rank and id of the previous page's last match; the filter uses the trigram index from V6.
+     */
+    @Query("/* BookRepository.search */ " +
+           "select b.id, b.title, b.author, word_similarity(:query, b.title || ' ' || b.author) as rank " +
+           "from book b " +
+           "where :query <% (b.title || ' ' || b.author) " +
+           "and (word_similarity(:query, b.title || ' ' || b.author) < :afterRank " +
+           "or (word_similarity(:query, b.title || ' ' || b.author) = :afterRank and b.id > :afterId)) " +
+           "order by rank desc, b.id " +
+           "limit :limit")
+    Flux<BookMatch> search(@Param("query") String query,
+                           @Param("afterRank") Float afterRank,
+                           @Param("afterId") Long afterId,
+                           @Param("limit") int limit);
 }
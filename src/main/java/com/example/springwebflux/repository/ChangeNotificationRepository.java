@@ -0,0 +1,32 @@
+package com.example.springwebflux.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class ChangeNotificationRepository {
+
+    private static final String NOTIFY_ALL = "/* ChangeNotificationRepository.notifyAll */ " +
+            "select pg_notify($1, payload) from unnest($2::text[]) as payload";
+
+    private final DatabaseClient databaseClient;
+
+    /**
+     * Sends all payloads on the channel with a single statement. Postgres holds notifications back until the
+     * surrounding transaction commits and drops them on rollback.
+     */
+    public Mono<Void> notifyAll(String channel, List<String> payloads) {
+        if (payloads.isEmpty()) {
+            return Mono.empty();
+        }
+        return databaseClient.sql(NOTIFY_ALL)
+                             .bind(0, channel)
+                             .bind(1, payloads.toArray(String[]::new))
+                             .then();
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.springwebflux.repository;
+
+import reactor.util.context.Context;
+
+/**
+ * Which database a query may run on. Queries are sent to the primary unless the subscriber context selects
+ * {@link #REPLICA}, which read paths that tolerate replication lag opt into with
+ * {@code .contextWrite(DatabaseRoute.REPLICA.context())}. Inside a transaction the primary is always used.
+ */
+public enum DatabaseRoute {
+    PRIMARY,
+    REPLICA;
+
+    public Context context() {
+        return Context.of(DatabaseRoute.class, this);
+    }
+}
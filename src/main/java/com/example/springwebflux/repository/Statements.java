@@ -0,0 +1,26 @@
+package com.example.springwebflux.repository;
+
+import io.r2dbc.spi.Statement;
+import reactor.core.publisher.Flux;
+
+final class Statements {
+
+    private Statements() {
+    }
+
+    static void bind(Statement statement, int index, Object value, Class<?> type) {
+        if (value == null) {
+            statement.bindNull(index, type);
+        } else {
+            statement.bind(index, value);
+        }
+    }
+
+    /**
+     * Executes the statement and emits the generated {@code id} of every binding, in binding order.
+     */
+    static Flux<Long> generatedIds(Statement statement) {
+        return Flux.from(statement.execute())
+                   .concatMap(result -> result.map((row, metadata) -> row.get("id", Long.class)));
+    }
+}
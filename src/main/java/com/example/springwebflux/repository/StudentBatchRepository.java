@@ -0,0 +1,20 @@
+package com.example.springwebflux.repository;
+
+import com.example.springwebflux.domain.Student;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+public interface StudentBatchRepository {
+
+    /**
+     * Inserts all students as a single batched statement and emits the generated ids in input order.
+     */
+    Flux<Long> insertAll(List<Student> students);
+
+    /**
+     * Deletes all students with the given ids in a single statement, their enrolments included by the cascading
+     * foreign keys, and emits the ids that existed.
+     */
+    Flux<Long> removeAll(List<Long> ids);
+}
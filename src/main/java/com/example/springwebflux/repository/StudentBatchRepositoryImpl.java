@@ -0,0 +1,52 @@
+package com.example.springwebflux.repository;
+
+import com.example.springwebflux.domain.Student;
+import io.r2dbc.spi.Statement;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+@RequiredArgsConstructor
+class StudentBatchRepositoryImpl implements StudentBatchRepository {
+
+    private static final String INSERT = "/* StudentRepository.insertAll */ " +
+            "insert into student (first_name, last_name) values ($1, $2)";
+
+    private static final String REMOVE_ALL = "/* StudentRepository.removeAll */ " +
+            "delete from student where id = any($1) returning id";
+
+    private final DatabaseClient databaseClient;
+
+    @Override
+    public Flux<Long> insertAll(List<Student> students) {
+        if (students.isEmpty()) {
+            return Flux.empty();
+        }
+        return databaseClient.inConnectionMany(connection -> {
+            Statement statement = connection.createStatement(INSERT)
+                                            .returnGeneratedValues("id");
+            for (int i = 0; i < students.size(); i++) {
+                Student student = students.get(i);
+                Statements.bind(statement, 0, student.getFirstName(), String.class);
+                Statements.bind(statement, 1, student.getLastName(), String.class);
+                if (i < students.size() - 1) {
+                    statement.add();
+                }
+            }
+            return Statements.generatedIds(statement);
+        });
+    }
+
+    @Override
+    public Flux<Long> removeAll(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Flux.empty();
+        }
+        return databaseClient.sql(REMOVE_ALL)
+                             .bind(0, ids.toArray(Long[]::new))
+                             .map(row -> row.get("id", Long.class))
+                             .all();
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.springwebflux.repository;
+
+import com.example.springwebflux.domain.Enrolment;
+import com.example.springwebflux.domain.EnrolmentStatus;
+import com.example.springwebflux.domain.StudentBook;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+public interface StudentBookBatchRepository {
+
+    /**
+     * Checks and inserts all pairs in a single statement, skipping pairs that already exist,
+     * and emits one status per pair in input order.
+     */
+    Flux<EnrolmentStatus> assignAll(List<StudentBook> pairs);
+
+    /**
+     * Deletes all pairs in a single statement and emits one status per pair in input order, {@code UNASSIGNED},
+     * {@code NOT_ASSIGNED} or the missing side.
+     */
+    Flux<EnrolmentStatus> unassignAll(List<StudentBook> pairs);
+
+    /**
+     * Checks both ids and inserts the pair in a single statement; emits {@code ASSIGNED} with the new row id,
+     * {@code ALREADY_ASSIGNED} or the missing side.
+     */
+    Mono<Enrolment> assign(Long studentId, Long bookId);
+
+    /**
+     * Deletes the pair in a single statement; emits {@code UNASSIGNED} with the deleted row id, {@code NOT_ASSIGNED}
+     * or the missing side.
+     */
+    Mono<Enrolment> unassign(Long studentId, Long bookId);
+}
@@ -0,0 +1,152 @@
+package com.example.springwebflux.repository;
+
+import com.example.springwebflux.domain.Enrolment;
+import com.example.springwebflux.domain.EnrolmentStatus;
+import com.example.springwebflux.domain.StudentBook;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+@RequiredArgsConstructor
+class StudentBookBatchRepositoryImpl implements StudentBookBatchRepository {
+
+    private static final String ASSIGN_ALL = """
+            /* StudentBookRepository.assignAll */
+            with pair as (
+                select p.student_id, p.book_id, p.ord,
+                       row_number() over (partition by p.student_id, p.book_id order by p.ord) = 1 as first,
+                       exists(select 1 from student s where s.id = p.student_id) as student_exists,
+                       exists(select 1 from book b where b.id = p.book_id) as book_exists
+                from unnest($1::bigint[], $2::bigint[]) with ordinality as p(student_id, book_id, ord)
+            ), inserted as (
+                insert into student_book (student_id, book_id)
+                select pair.student_id, pair.book_id from pair
+                where pair.first and pair.student_exists and pair.book_exists
+                on conflict (student_id, book_id) do nothing
+                returning student_id, book_id
+            )
+            select case
+                       when not pair.student_exists then 'STUDENT_NOT_FOUND'
+                       when not pair.book_exists then 'BOOK_NOT_FOUND'
+                       when pair.first and inserted.student_id is not null then 'ASSIGNED'
+                       else 'ALREADY_ASSIGNED'
+                   end as status
+            from pair
+            left join inserted on inserted.student_id = pair.student_id and inserted.book_id = pair.book_id
+            order by pair.ord
+            """;
+
+    private static final String UNASSIGN_ALL = """
+            /* StudentBookRepository.unassignAll */
+            with pair as (
+                select p.student_id, p.book_id, p.ord
+                from unnest($1::bigint[], $2::bigint[]) with ordinality as p(student_id, book_id, ord)
+            ), deleted as (
+                delete from student_book sb
+                using pair
+                where sb.student_id = pair.student_id and sb.book_id = pair.book_id
+                returning sb.student_id, sb.book_id
+            )
+            select case
+                       when deleted.student_id is not null then 'UNASSIGNED'
+                       when not exists(select 1 from student s where s.id = pair.student_id) then 'STUDENT_NOT_FOUND'
+                       when not exists(select 1 from book b where b.id = pair.book_id) then 'BOOK_NOT_FOUND'
+                       else 'NOT_ASSIGNED'
+                   end as status
+            from pair
+            left join deleted on deleted.student_id = pair.student_id and deleted.book_id = pair.book_id
+            order by pair.ord
+            """;
+
+    private static final String ASSIGN = """
+            /* StudentBookRepository.assign */
+            with pair as (
+                select exists(select 1 from student s where s.id = $1) as student_exists,
+                       exists(select 1 from book b where b.id = $2) as book_exists
+            ), inserted as (
+                insert into student_book (student_id, book_id)
+                select $1, $2 from pair
+                where pair.student_exists and pair.book_exists
+                on conflict (student_id, book_id) do nothing
+                returning id
+            )
+            select case
+                       when not pair.student_exists then 'STUDENT_NOT_FOUND'
+                       when not pair.book_exists then 'BOOK_NOT_FOUND'
+                       when inserted.id is not null then 'ASSIGNED'
+                       else 'ALREADY_ASSIGNED'
+                   end as status,
+                   inserted.id
+            from pair
+            left join inserted on true
+            """;
+
+    private static final String UNASSIGN = """
+            /* StudentBookRepository.unassign */
+            with deleted as (
+                delete from student_book sb
+                where sb.student_id = $1 and sb.book_id = $2
+                returning sb.id
+            )
+            select case
+                       when deleted.id is not null then 'UNASSIGNED'
+                       when not exists(select 1 from student s where s.id = $1) then 'STUDENT_NOT_FOUND'
+                       when not exists(select 1 from book b where b.id = $2) then 'BOOK_NOT_FOUND'
+                       else 'NOT_ASSIGNED'
+                   end as status,
+                   deleted.id
+            from (select 1) as single
+            left join deleted on true
+            """;
+
+    private final DatabaseClient databaseClient;
+
+    @Override
+    public Flux<EnrolmentStatus> assignAll(List<StudentBook> pairs) {
+        return all(ASSIGN_ALL, pairs);
+    }
+
+    @Override
+    public Flux<EnrolmentStatus> unassignAll(List<StudentBook> pairs) {
+        return all(UNASSIGN_ALL, pairs);
+    }
+
+    @Override
+    public Mono<Enrolment> assign(Long studentId, Long bookId) {
+        return single(ASSIGN, studentId, bookId);
+    }
+
+    @Override
+    public Mono<Enrolment> unassign(Long studentId, Long bookId) {
+        return single(UNASSIGN, studentId, bookId);
+    }
+
+    private Flux<EnrolmentStatus> all(String sql, List<StudentBook> pairs) {
+        if (pairs.isEmpty()) {
+            return Flux.empty();
+        }
+        Long[] studentIds = new Long[pairs.size()];
+        Long[] bookIds = new Long[pairs.size()];
+        for (int i = 0; i < pairs.size(); i++) {
+            studentIds[i] = pairs.get(i).getStudentId();
+            bookIds[i] = pairs.get(i).getBookId();
+        }
+        return databaseClient.sql(sql)
+                             .bind(0, studentIds)
+                             .bind(1, bookIds)
+                             .map(row -> EnrolmentStatus.valueOf(row.get("status", String.class)))
+                             .all();
+    }
+
+    private Mono<Enrolment> single(String sql, Long studentId, Long bookId) {
+        return databaseClient.sql(sql)
+                             .bind(0, studentId)
+                             .bind(1, bookId)
+                             .map(row -> new Enrolment(row.get("id", Long.class),
+                                                       EnrolmentStatus.valueOf(row.get("status", String.class))))
+                             .one();
+    }
+}
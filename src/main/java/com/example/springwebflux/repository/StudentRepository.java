@@ -1,9 +1,39 @@
 package com.example.springwebflux.repository;
 
 import com.example.springwebflux.domain.Student;
+import com.example.springwebflux.domain.StudentBookRow;
+import com.example.springwebflux.domain.StudentSummary;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
 
 @Repository
-public interface StudentRepository extends R2dbcRepository<Student, Long> {
+public interface StudentRepository extends R2dbcRepository<Student, Long>, StudentBatchRepository {
+
+    @Query("/* StudentRepository.findPage */ " +
+           "select * from student s where s.id > :after order by s.id limit :limit")
+    Flux<Student> findPage(@Param("after") Long after, @Param("limit") int limit);
+
+    /**
+     * The next {@code limit} students after {@code after} joined with their books, ordered by student id.
+     */
+    @Query("/* StudentRepository.findRowPage */ " +
+           "select s.id as student_id, s.first_name, s.last_name, " +
+           "b.id as book_id, b.title, b.author, b.created_at, b.last_modified_at " +
+           "from (select * from student where id > :after order by id limit :limit) s " +
+           "left join student_book sb on sb.student_id = s.id " +
+           "left join book b on b.id = sb.book_id " +
+           "order by s.id, sb.id")
+    Flux<StudentBookRow> findRowPage(@Param("after") Long after, @Param("limit") int limit);
+
+    @Query("/* StudentRepository.findSummaryPage */ " +
+           "select s.id, s.first_name, s.last_name from student s where s.id > :after order by s.id limit :limit")
+    Flux<StudentSummary> findSummaryPage(@Param("after") Long after, @Param("limit") int limit);
+
+    @Query("/* StudentRepository.findPageByBookId */ " +
+           "select s.id, s.first_name, s.last_name from student s join student_book sb on sb.student_id = s.id " +
+           "where sb.book_id = :bookId and s.id > :after order by s.id limit :limit")
+    Flux<StudentSummary> findPageByBookId(@Param("bookId") Long bookId, @Param("after") Long after, @Param("limit") int limit);
 }
@@ -0,0 +1,36 @@
+package com.example.springwebflux.service;
+
+import com.example.springwebflux.domain.Book;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Read-through cache in front of {@link BookLoader}. Concurrent misses for the same id share
+ * a single in-flight query, so subscribers must not cancel the shared future.
+ */
+@Component
+@RequiredArgsConstructor
+public class BookCache {
+
+    private final AsyncCache<Long, Book> cache;
+    private final BookLoader bookLoader;
+
+    public Mono<Book> get(Long id) {
+        return Mono.fromFuture(() -> cache.get(id, (key, executor) -> bookLoader.load(key)), true);
+    }
+
+    public Flux<Book> getAll(Collection<Long> ids) {
+        return Mono.fromFuture(() -> cache.getAll(ids, (keys, executor) -> bookLoader.loadAll(keys)), true)
+                   .flatMapIterable(Map::values);
+    }
+
+    public void invalidate(Long id) {
+        cache.synchronous().invalidate(id);
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.springwebflux.service;
+
+import com.example.springwebflux.config.BookLoaderProperties;
+import com.example.springwebflux.domain.Book;
+import com.example.springwebflux.repository.BookRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batches book lookups across concurrent requests. The first id requested starts a window of
+ * {@code app.book-loader.window}; every id requested until it closes, or until {@code max-batch-size} ids are
+ * waiting, is deduplicated and loaded with a single {@code id = any(?)} query. Sits beneath {@link BookCache}, so
+ * only misses get here.
+ */
+@Component
+public class BookLoader {
+
+    private final BookRepository bookRepository;
+    private final BookLoaderProperties properties;
+    private final DistributionSummary batchSizes;
+
+    private Map<Long, CompletableFuture<Book>> pending = new HashMap<>();
+
+    public BookLoader(BookRepository bookRepository, BookLoaderProperties properties, MeterRegistry meterRegistry) {
+        this.bookRepository = bookRepository;
+        this.properties = properties;
+        this.batchSizes = DistributionSummary.builder("books.loader.batch.size")
+                                             .description("Distinct book ids loaded per query")
+                                             .register(meterRegistry);
+    }
+
+    /**
+     * Completes with {@code null} when there is no such book.
+     */
+    public CompletableFuture<Book> load(Long id) {
+        return loadAll(List.of(id)).thenApply(books -> books.get(id));
+    }
+
+    /**
+     * Completes with the books that exist, keyed by id.
+     */
+    public CompletableFuture<Map<Long, Book>> loadAll(Collection<? extends Long> ids) {
+        List<CompletableFuture<Book>> futures = new ArrayList<>(ids.size());
+        Map<Long, CompletableFuture<Book>> due = null;
+        boolean opened;
+        synchronized (this) {
+            opened = pending.isEmpty();
+            for (Long id : ids) {
+                futures.add(pending.computeIfAbsent(id, key -> new CompletableFuture<>()));
+            }
+            if (properties.window().isZero() || pending.size() >= properties.maxBatchSize()) {
+                due = pending;
+                pending = new HashMap<>();
+            }
+        }
+        if (due != null) {
+            dispatch(due);
+        } else if (opened) {
+            Schedulers.parallel().schedule(this::dispatchPending, properties.window().toNanos(), TimeUnit.NANOSECONDS);
+        }
+
+        return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                                .thenApply(ignored -> {
+                                    Map<Long, Book> books = new LinkedHashMap<>();
+                                    for (CompletableFuture<Book> future : futures) {
+                                        Book book = future.join();
+                                        if (book != null) {
+                                            books.put(book.getId(), book);
+                                        }
+                                    }
+                                    return books;
+                                });
+    }
+
+    private void dispatchPending() {
+        Map<Long, CompletableFuture<Book>> due;
+        synchronized (this) {
+            due = pending;
+            pending = new HashMap<>();
+        }
+        if (!due.isEmpty()) {
+            dispatch(due);
+        }
+    }
+
+    private void dispatch(Map<Long, CompletableFuture<Book>> batch) {
+        List<Long> ids = new ArrayList<>(batch.keySet());
+        for (int from = 0; from < ids.size(); from += properties.maxBatchSize()) {
+            List<Long> chunk = ids.subList(from, Math.min(from + properties.maxBatchSize(), ids.size()));
+            batchSizes.record(chunk.size());
+            bookRepository.findAllByIds(chunk.toArray(Long[]::new))
+                          .subscribe(book -> batch.get(book.getId()).complete(book),
+                                     error -> chunk.forEach(id -> batch.get(id).completeExceptionally(error)),
+                                     () -> chunk.forEach(id -> batch.get(id).complete(null)));
+        }
+    }
+}
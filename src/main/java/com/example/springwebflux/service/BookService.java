@@ -1,48 +1,162 @@
 package com.example.springwebflux.service;
 
+import com.example.springwebflux.config.BulkProperties;
+import com.example.springwebflux.config.PaginationProperties;
 import com.example.springwebflux.domain.Book;
+import com.example.springwebflux.domain.BookMatch;
+import com.example.springwebflux.domain.BookSummary;
+import com.example.springwebflux.domain.ChangeEvent;
+import com.example.springwebflux.domain.StudentSummary;
+import com.example.springwebflux.repository.DatabaseRoute;
 import com.example.springwebflux.repository.BookRepository;
-import com.example.springwebflux.repository.StudentBookRepository;
+import com.example.springwebflux.repository.StudentRepository;
 import com.example.springwebflux.service.mapper.Mapper;
 import com.example.springwebflux.web.dto.BookDto;
+import com.example.springwebflux.web.dto.BookMatchDto;
 import com.example.springwebflux.web.dto.BookRequest;
+import com.example.springwebflux.web.dto.BookSummaryDto;
+import com.example.springwebflux.web.dto.StudentSummaryDto;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Function;
 
 @Service
 @RequiredArgsConstructor
 public class BookService {
 
     private final BookRepository bookRepository;
-    private final StudentBookRepository studentBookRepository;
+    private final StudentRepository studentRepository;
     private final Mapper<Book, BookDto> bookDtoMapper;
+    private final Mapper<BookMatch, BookMatchDto> bookMatchDtoMapper;
+    private final Mapper<BookSummary, BookSummaryDto> bookSummaryDtoMapper;
+    private final Mapper<StudentSummary, StudentSummaryDto> studentSummaryDtoMapper;
+    private final PaginationProperties paginationProperties;
+    private final BulkProperties bulkProperties;
+    private final TransactionalOperator transactionalOperator;
+    private final BookCache bookCache;
+    private final StudentAggregateCache studentAggregateCache;
+    private final ChangeFeed changeFeed;
 
-    public Mono<List<BookDto>> getAll() {
-        return bookRepository.findAll()
+    public Flux<BookDto> getAll(Long after) {
+        return Keyset.stream(after, paginationProperties.streamPageSize(), bookRepository::findPage, Book::getId)
                 .map(bookDtoMapper::map)
-                .collectList();
+                .contextWrite(DatabaseRoute.REPLICA.context());
+    }
+
+    public Flux<BookDto> getPage(Long after, int limit) {
+        return bookRepository.findPage(Keyset.after(after), limit)
+                .map(bookDtoMapper::map)
+                .contextWrite(DatabaseRoute.REPLICA.context());
+    }
+
+    /**
+     * Same walk as {@link #getAll(Long)}, reading only id, title and author.
+     */
+    public Flux<BookSummaryDto> getSummaries(Long after) {
+        return Keyset.stream(after, paginationProperties.streamPageSize(), bookRepository::findSummaryPage, BookSummary::getId)
+                .map(bookSummaryDtoMapper::map)
+                .contextWrite(DatabaseRoute.REPLICA.context());
+    }
+
+    public Flux<BookSummaryDto> getSummaryPage(Long after, int limit) {
+        return bookRepository.findSummaryPage(Keyset.after(after), limit)
+                .map(bookSummaryDtoMapper::map)
+                .contextWrite(DatabaseRoute.REPLICA.context());
     }
 
     public Mono<BookDto> getById(Long id) {
-        return bookRepository.findById(id)
+        return bookCache.get(id)
                 .map(bookDtoMapper::map);
     }
 
+    /**
+     * Streams the students holding a book in id order, one join query per page.
+     */
+    public Flux<StudentSummaryDto> getStudents(Long bookId, Long after) {
+        return Keyset.stream(after,
+                             paginationProperties.streamPageSize(),
+                             (cursor, limit) -> studentRepository.findPageByBookId(bookId, cursor, limit),
+                             StudentSummary::getId)
+                .map(studentSummaryDtoMapper::map)
+                .contextWrite(DatabaseRoute.REPLICA.context());
+    }
+
+    public Flux<StudentSummaryDto> getStudentsPage(Long bookId, Long after, int limit) {
+        return studentRepository.findPageByBookId(bookId, Keyset.after(after), limit)
+                .map(studentSummaryDtoMapper::map)
+                .contextWrite(DatabaseRoute.REPLICA.context());
+    }
+
+    /**
+     * Searches titles and authors by trigram word similarity. Without a cursor the first page is returned;
+     * otherwise the page starts after the match with the given rank and id.
+     */
+    public Flux<BookMatchDto> search(String query, Float afterRank, Long afterId, int limit) {
+        boolean first = afterRank == null || afterId == null;
+        return bookRepository.search(query, first ? Float.MAX_VALUE : afterRank, first ? Keyset.FIRST : afterId, limit)
+                .map(bookMatchDtoMapper::map)
+                .contextWrite(DatabaseRoute.REPLICA.context());
+    }
+
     @Transactional
     public Mono<Long> save(BookRequest request) {
         Book book = new Book(request.getTitle(), request.getAuthor());
 
         return bookRepository.save(book)
-                .map(Book::getId);
+                .map(Book::getId)
+                .flatMap(id -> AfterCommit.run(() -> bookCache.invalidate(id))
+                                          .then(changeFeed.publish(List.of(ChangeEvent.created(ChangeEvent.Entity.BOOK, id))))
+                                          .thenReturn(id));
+    }
+
+    /**
+     * Inserts books in chunks of {@code app.bulk.chunk-size}, one transaction per chunk. The next chunk is
+     * only requested from the body once the previous one is stored.
+     */
+    public Flux<Long> saveAll(Flux<BookRequest> requests) {
+        return requests.map(request -> new Book(request.getTitle(), request.getAuthor()))
+                .buffer(bulkProperties.chunkSize())
+                .concatMap(chunk -> transactionalOperator.transactional(bookRepository.insertAll(chunk)
+                                                                                      .collectList()
+                                                                                      .flatMapMany(ids -> changeFeed.publish(events(ids, id -> ChangeEvent.created(ChangeEvent.Entity.BOOK, id)))
+                                                                                                                    .thenMany(Flux.fromIterable(ids)))), 1);
     }
 
     @Transactional
     public Mono<Void> remove(Long bookId) {
-        return studentBookRepository.deleteByBookId(bookId)
-                .then(bookRepository.deleteById(bookId));
+        return removeChunk(List.of(bookId)).then();
+    }
+
+    /**
+     * Deletes books in chunks of {@code app.bulk.chunk-size}, one statement and transaction per chunk; their
+     * enrolments go with them through the cascading foreign keys. Emits the ids that existed.
+     */
+    public Flux<Long> removeAll(Flux<Long> ids) {
+        return ids.buffer(bulkProperties.chunkSize())
+                .concatMap(chunk -> transactionalOperator.transactional(removeChunk(chunk)), 1);
+    }
+
+    private Flux<Long> removeChunk(List<Long> ids) {
+        return bookRepository.removeAll(ids)
+                .collectList()
+                .flatMapMany(removed -> AfterCommit.run(() -> {
+                                                       removed.forEach(bookCache::invalidate);
+                                                       studentAggregateCache.invalidateBooks(removed);
+                                                   })
+                                                   .then(changeFeed.publish(events(removed, id -> ChangeEvent.deleted(ChangeEvent.Entity.BOOK, id))))
+                                                   .thenMany(Flux.fromIterable(removed)));
+    }
+
+    private static List<ChangeEvent> events(List<Long> ids, Function<Long, ChangeEvent> event) {
+        List<ChangeEvent> events = new ArrayList<>(ids.size());
+        ids.forEach(id -> events.add(event.apply(id)));
+        return events;
     }
 }
@@ -0,0 +1,152 @@
+package com.example.springwebflux.service;
+
+import com.example.springwebflux.config.ChangeStreamProperties;
+import com.example.springwebflux.domain.ChangeEvent;
+import com.example.springwebflux.repository.ChangeNotificationRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.postgresql.api.PostgresqlResult;
+import io.r2dbc.spi.Closeable;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Publishes change events with {@code pg_notify} from the write paths and fans out the notifications of all
+ * nodes to local subscribers. Each node keeps a single {@code LISTEN} connection outside the pool,
+ * reconnecting with backoff; events committed while it is down are not replayed.
+ */
+@Slf4j
+@Component
+public class ChangeFeed implements InitializingBean, DisposableBean {
+
+    private final ChangeNotificationRepository changeNotificationRepository;
+    private final ChangeStreamProperties properties;
+    private final R2dbcProperties r2dbcProperties;
+    private final ObjectMapper objectMapper;
+    private final Sinks.Many<ChangeEvent> sink = Sinks.many().multicast().directBestEffort();
+
+    private final AtomicReference<Connection> listening = new AtomicReference<>();
+    private ConnectionFactory connectionFactory;
+    private Disposable listener;
+
+    public ChangeFeed(ChangeNotificationRepository changeNotificationRepository,
+                      ChangeStreamProperties properties,
+                      R2dbcProperties r2dbcProperties,
+                      ObjectMapper objectMapper,
+                      MeterRegistry meterRegistry) {
+        this.changeNotificationRepository = changeNotificationRepository;
+        this.properties = properties;
+        this.r2dbcProperties = r2dbcProperties;
+        this.objectMapper = objectMapper;
+        Gauge.builder("changes.subscribers", sink, Sinks.Many::currentSubscriberCount)
+             .description("Subscribers of the change feed on this node")
+             .register(meterRegistry);
+    }
+
+    /**
+     * Notifies all nodes of the events once the current transaction commits.
+     */
+    public Mono<Void> publish(List<ChangeEvent> events) {
+        return Mono.fromCallable(() -> {
+                       List<String> payloads = new ArrayList<>(events.size());
+                       for (ChangeEvent event : events) {
+                           payloads.add(objectMapper.writeValueAsString(event));
+                       }
+                       return payloads;
+                   })
+                   .flatMap(payloads -> changeNotificationRepository.notifyAll(properties.channel(), payloads));
+    }
+
+    /**
+     * Events committed from now on. Every subscriber has its own buffer of {@code app.changes.subscriber-buffer-size}
+     * events; one that falls further behind fails with an overflow error instead of holding up the others.
+     */
+    public Flux<ChangeEvent> subscribe() {
+        return sink.asFlux()
+                   .onBackpressureBuffer(properties.subscriberBufferSize());
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        connectionFactory = ConnectionFactoryBuilder.withUrl(r2dbcProperties.getUrl())
+                .username(r2dbcProperties.getUsername())
+                .password(r2dbcProperties.getPassword())
+                .build();
+
+        listener = Flux.usingWhen(Mono.from(connectionFactory.create()).doOnNext(listening::set),
+                                  this::listen,
+                                  Connection::close)
+                       .retryWhen(Retry.backoff(Long.MAX_VALUE, properties.minReconnectBackoff())
+                                       .maxBackoff(properties.maxReconnectBackoff())
+                                       .transientErrors(true)
+                                       .doBeforeRetry(signal -> log.warn("Change feed listener lost, reconnecting", signal.failure())))
+                       .subscribe(sink::tryEmitNext);
+    }
+
+    /**
+     * Stops listening, then closes the listening connection and the factory it came from, waiting up to
+     * {@code app.changes.shutdown-timeout}.
+     */
+    @Override
+    public void destroy() {
+        listener.dispose();
+        sink.tryEmitComplete();
+        try {
+            Mono.justOrEmpty(listening.getAndSet(null))
+                .flatMap(open -> Mono.from(open.close()))
+                .then(Mono.defer(() -> close(connectionFactory)))
+                .block(properties.shutdownTimeout());
+        } catch (RuntimeException e) {
+            log.warn("Could not close the change feed listener connection", e);
+        }
+    }
+
+    private static Mono<Void> close(ConnectionFactory connectionFactory) {
+        if (connectionFactory instanceof Closeable closeable) {
+            return Mono.from(closeable.close());
+        }
+        if (connectionFactory instanceof Disposable disposable) {
+            disposable.dispose();
+        }
+        return Mono.empty();
+    }
+
+    private Flux<ChangeEvent> listen(Connection connection) {
+        if (!(connection instanceof PostgresqlConnection postgres)) {
+            return Flux.error(new IllegalStateException("LISTEN needs a Postgres connection, got " + connection.getClass().getName()));
+        }
+        return postgres.createStatement("LISTEN " + properties.channel())
+                       .execute()
+                       .flatMap(PostgresqlResult::getRowsUpdated)
+                       .thenMany(postgres.getNotifications())
+                       .concatWith(Flux.error(new IllegalStateException("Notification stream completed")))
+                       .concatMap(notification -> deserialize(notification.getParameter()));
+    }
+
+    private Mono<ChangeEvent> deserialize(String payload) {
+        try {
+            return Mono.just(objectMapper.readValue(payload, ChangeEvent.class));
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring malformed change notification '{}'", payload, e);
+            return Mono.empty();
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.example.springwebflux.service;
+
+import com.example.springwebflux.config.EnrolmentBufferProperties;
+import com.example.springwebflux.domain.ChangeEvent;
+import com.example.springwebflux.domain.EnrolmentStatus;
+import com.example.springwebflux.domain.StudentBook;
+import com.example.springwebflux.repository.StudentBookRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Write-behind queue for single enrolment changes, used when {@code app.enrolment-buffer.enabled} is set. Changes to
+ * the same student and book are coalesced so only the last one is written: an add followed by a remove leaves just
+ * the delete, which is a no-op if the pair did not exist before. Pending pairs are written every
+ * {@code flush-interval}, or as soon as {@code max-batch-size} are waiting, in one transaction of at most two
+ * statements. Once {@code capacity} pairs are waiting, callers wait for the next flush instead of growing the queue.
+ * Changes queued without acknowledgement are lost if their batch fails or the node dies before it is flushed.
+ */
+@Slf4j
+@Component
+public class EnrolmentBuffer implements InitializingBean, DisposableBean {
+
+    private final StudentBookRepository studentBookRepository;
+    private final TransactionalOperator transactionalOperator;
+    private final StudentAggregateCache studentAggregateCache;
+    private final ChangeFeed changeFeed;
+    private final EnrolmentBufferProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Counter coalesced;
+    private final Map<Pair, Pending> pending = new LinkedHashMap<>();
+    private final Sinks.Many<Long> triggers = Sinks.many().multicast().directBestEffort();
+    private final Sinks.One<Boolean> stop = Sinks.one();
+
+    private Sinks.Empty<Void> drained = Sinks.empty();
+    private CompletableFuture<Void> flushes;
+
+    public EnrolmentBuffer(StudentBookRepository studentBookRepository,
+                           TransactionalOperator transactionalOperator,
+                           StudentAggregateCache studentAggregateCache,
+                           ChangeFeed changeFeed,
+                           EnrolmentBufferProperties properties,
+                           MeterRegistry meterRegistry) {
+        this.studentBookRepository = studentBookRepository;
+        this.transactionalOperator = transactionalOperator;
+        this.studentAggregateCache = studentAggregateCache;
+        this.changeFeed = changeFeed;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.coalesced = Counter.builder("enrolment.buffer.coalesced")
+                                .description("Enrolment changes that replaced a pending change of the same pair")
+                                .register(meterRegistry);
+        Gauge.builder("enrolment.buffer.pending", this, EnrolmentBuffer::size)
+             .description("Enrolment changes waiting for the next flush")
+             .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return properties.enabled();
+    }
+
+    /**
+     * Queues an assignment. With {@code ack} the mono completes once it is committed, failing with an
+     * {@link EnrolmentException} like {@link StudentService#addBook(Long, Long)}; otherwise once it is queued.
+     */
+    public Mono<Void> add(Long studentId, Long bookId, boolean ack) {
+        return submit(Operation.ADD, studentId, bookId, ack);
+    }
+
+    /**
+     * Queues an unassignment, see {@link #add(Long, Long, boolean)}.
+     */
+    public Mono<Void> remove(Long studentId, Long bookId, boolean ack) {
+        return submit(Operation.REMOVE, studentId, bookId, ack);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!properties.enabled()) {
+            return;
+        }
+        flushes = Flux.merge(Flux.interval(properties.flushInterval()), triggers.asFlux())
+                      .onBackpressureDrop()
+                      .takeUntilOther(stop.asMono())
+                      .concatMap(tick -> flush(), 1)
+                      .then(Mono.defer(this::flush))
+                      .toFuture();
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (flushes == null) {
+            return;
+        }
+        stop.tryEmitValue(true);
+        try {
+            flushes.get(properties.shutdownTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Gave up flushing {} enrolment changes on shutdown", size());
+        }
+    }
+
+    /**
+     * Writes batches until nothing is pending. Batches are only ever written one at a time, so later changes of a
+     * pair never overtake earlier ones.
+     */
+    Mono<Void> flush() {
+        return Mono.defer(this::writeBatch)
+                   .repeat(() -> size() > 0)
+                   .then();
+    }
+
+    private Mono<Void> submit(Operation operation, Long studentId, Long bookId, boolean ack) {
+        return Mono.defer(() -> {
+            Pair pair = new Pair(studentId, bookId);
+            Sinks.Empty<Void> acknowledgement = ack ? Sinks.empty() : null;
+            Mono<Void> space = null;
+            boolean due;
+            synchronized (this) {
+                Pending entry = pending.get(pair);
+                if (entry == null && pending.size() >= properties.capacity()) {
+                    space = drained.asMono();
+                } else if (entry == null) {
+                    entry = new Pending(pair);
+                    pending.put(pair, entry);
+                } else {
+                    coalesced.increment();
+                }
+                if (space == null) {
+                    entry.queue(operation, acknowledgement);
+                }
+                due = pending.size() >= properties.maxBatchSize();
+            }
+            if (due) {
+                // Dropped while a flush is already running or under contention; the interval picks it up then.
+                triggers.tryEmitNext(0L);
+            }
+            if (space != null) {
+                return space.then(submit(operation, studentId, bookId, ack));
+            }
+            return acknowledgement == null ? Mono.empty() : acknowledgement.asMono();
+        });
+    }
+
+    private Mono<Void> writeBatch() {
+        List<Pending> batch;
+        Sinks.Empty<Void> space;
+        synchronized (this) {
+            batch = new ArrayList<>(Math.min(pending.size(), properties.maxBatchSize()));
+            Iterator<Pending> entries = pending.values().iterator();
+            while (entries.hasNext() && batch.size() < properties.maxBatchSize()) {
+                batch.add(entries.next());
+                entries.remove();
+            }
+            space = drained;
+            drained = Sinks.empty();
+        }
+        space.tryEmitEmpty();
+        if (batch.isEmpty()) {
+            return Mono.empty();
+        }
+
+        List<StudentBook> assign = new ArrayList<>();
+        List<StudentBook> unassign = new ArrayList<>();
+        batch.forEach(entry -> (entry.operation == Operation.ADD ? assign : unassign).add(entry.pair.toStudentBook()));
+
+        Runnable invalidateStudents = () -> batch.forEach(entry -> studentAggregateCache.invalidateStudent(entry.pair.studentId()));
+        Timer.Sample sample = Timer.start(meterRegistry);
+        return transactionalOperator.transactional(AfterCommit.run(invalidateStudents)
+                                                              .then(studentBookRepository.assignAll(assign).collectList())
+                                                              .zipWhen(assigned -> studentBookRepository.unassignAll(unassign).collectList())
+                                                              .flatMap(statuses -> {
+                                                                  resolve(batch, statuses.getT1(), statuses.getT2());
+                                                                  return changeFeed.publish(changes(batch));
+                                                              }))
+                                    .doOnSuccess(ignored -> {
+                                        sample.stop(flushTimer("success"));
+                                        batch.forEach(Pending::acknowledge);
+                                    })
+                                    .onErrorResume(error -> {
+                                        sample.stop(flushTimer("error"));
+                                        log.error("Could not flush {} enrolment changes", batch.size(), error);
+                                        batch.forEach(entry -> entry.fail(error));
+                                        return Mono.empty();
+                                    });
+    }
+
+    private synchronized int size() {
+        return pending.size();
+    }
+
+    private Timer flushTimer(String outcome) {
+        return Timer.builder("enrolment.buffer.flush")
+                    .description("Batches of buffered enrolment changes written in one transaction")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry);
+    }
+
+    private static void resolve(List<Pending> batch, List<EnrolmentStatus> assigned, List<EnrolmentStatus> unassigned) {
+        int nextAssigned = 0;
+        int nextUnassigned = 0;
+        for (Pending entry : batch) {
+            entry.status = entry.operation == Operation.ADD ? assigned.get(nextAssigned++) : unassigned.get(nextUnassigned++);
+        }
+    }
+
+    private static List<ChangeEvent> changes(List<Pending> batch) {
+        List<ChangeEvent> events = new ArrayList<>();
+        for (Pending entry : batch) {
+            if (entry.status == EnrolmentStatus.ASSIGNED) {
+                events.add(ChangeEvent.enrolled(entry.pair.studentId(), entry.pair.bookId()));
+            } else if (entry.status == EnrolmentStatus.UNASSIGNED) {
+                events.add(ChangeEvent.unenrolled(entry.pair.studentId(), entry.pair.bookId()));
+            }
+        }
+        return events;
+    }
+
+    private enum Operation {
+        ADD,
+        REMOVE
+    }
+
+    private record Pair(Long studentId, Long bookId) {
+
+        private StudentBook toStudentBook() {
+            return new StudentBook(studentId, bookId);
+        }
+    }
+
+    private record Acknowledgement(Operation operation, Sinks.Empty<Void> sink) {
+    }
+
+    /**
+     * The last queued operation of a pair and everyone waiting for it. Callers whose operation was replaced only
+     * learn about a missing student or book; the others get the outcome of the statement.
+     */
+    private static final class Pending {
+
+        private final Pair pair;
+        private final List<Acknowledgement> acknowledgements = new ArrayList<>(1);
+        private Operation operation;
+        private EnrolmentStatus status;
+
+        private Pending(Pair pair) {
+            this.pair = pair;
+        }
+
+        private void queue(Operation operation, Sinks.Empty<Void> acknowledgement) {
+            this.operation = operation;
+            if (acknowledgement != null) {
+                acknowledgements.add(new Acknowledgement(operation, acknowledgement));
+            }
+        }
+
+        private void acknowledge() {
+            boolean missing = status == EnrolmentStatus.STUDENT_NOT_FOUND || status == EnrolmentStatus.BOOK_NOT_FOUND;
+            boolean applied = status == EnrolmentStatus.ASSIGNED || status == EnrolmentStatus.UNASSIGNED;
+            for (Acknowledgement acknowledgement : acknowledgements) {
+                if (missing || (acknowledgement.operation() == operation && !applied)) {
+                    acknowledgement.sink().tryEmitError(new EnrolmentException(status, pair.studentId(), pair.bookId()));
+                } else {
+                    acknowledgement.sink().tryEmitEmpty();
+                }
+            }
+        }
+
+        private void fail(Throwable error) {
+            acknowledgements.forEach(acknowledgement -> acknowledgement.sink().tryEmitError(error));
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.springwebflux.service;
+
+import com.example.springwebflux.domain.EnrolmentStatus;
+import lombok.Getter;
+
+/**
+ * A single enrolment change that could not be applied, with the reason as status.
+ */
+@Getter
+public class EnrolmentException extends RuntimeException {
+
+    private final EnrolmentStatus status;
+
+    public EnrolmentException(EnrolmentStatus status, Long studentId, Long bookId) {
+        super(status + " for student " + studentId + " and book " + bookId);
+        this.status = status;
+    }
+}
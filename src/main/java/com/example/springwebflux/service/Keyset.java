@@ -0,0 +1,75 @@
+package com.example.springwebflux.service;
+
+import reactor.core.publisher.Flux;
+
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Walks a table in id order one page at a time, so only a single page is ever held in memory. The next page is
+ * queried by resubscribing once the previous one completed, so the operator chain does not grow with the number of
+ * pages.
+ */
+final class Keyset {
+
+    static final long FIRST = 0L;
+
+    private Keyset() {
+    }
+
+    static long after(Long cursor) {
+        return cursor == null ? FIRST : cursor;
+    }
+
+    static <T> Flux<T> stream(Long after,
+                              int pageSize,
+                              BiFunction<Long, Integer, Flux<T>> pageQuery,
+                              Function<T, Long> idExtractor) {
+        return Flux.defer(() -> {
+            Position position = new Position(after(after));
+            return Flux.defer(() -> pageQuery.apply(position.nextPage(), pageSize))
+                       .doOnNext(row -> position.advance(idExtractor.apply(row)))
+                       .collectList()
+                       .flatMapIterable(page -> page)
+                       .repeat(() -> position.ids >= pageSize);
+        });
+    }
+
+    /**
+     * Like {@link #stream}, for queries returning several consecutive rows per id where {@code pageSize} counts ids.
+     * Rows are passed through as they arrive instead of collecting each page.
+     */
+    static <T> Flux<T> streamGrouped(Long after,
+                                     int pageSize,
+                                     BiFunction<Long, Integer, Flux<T>> pageQuery,
+                                     Function<T, Long> idExtractor) {
+        return Flux.defer(() -> {
+            Position position = new Position(after(after));
+            return Flux.defer(() -> pageQuery.apply(position.nextPage(), pageSize))
+                       .doOnNext(row -> position.advance(idExtractor.apply(row)))
+                       .repeat(() -> position.ids >= pageSize);
+        });
+    }
+
+    private static final class Position {
+
+        private long last;
+        private int ids;
+
+        private Position(long last) {
+            this.last = last;
+        }
+
+        private long nextPage() {
+            ids = 0;
+            return last;
+        }
+
+        private void advance(long id) {
+            if (id != last) {
+                last = id;
+                ids++;
+            }
+        }
+    }
+}
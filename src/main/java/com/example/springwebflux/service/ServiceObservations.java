@@ -0,0 +1,78 @@
+package com.example.springwebflux.service;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.contextpropagation.ObservationThreadLocalAccessor;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.util.context.ContextView;
+
+/**
+ * Observes every subscription to a publisher returned by {@link BookService} or {@link StudentService}: a
+ * {@code service.method} timer tagged with class, method and outcome, and a span in the request's trace when it is
+ * sampled. The observation is put into the subscriber context, so statement spans nest under it.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class ServiceObservations {
+
+    private static final String OBSERVATION = "service.method";
+
+    private final ObservationRegistry observationRegistry;
+
+    @Around("execution(public reactor.core.publisher.Mono com.example.springwebflux.service.*Service.*(..))"
+            + " || execution(public reactor.core.publisher.Flux com.example.springwebflux.service.*Service.*(..))")
+    public Object observe(ProceedingJoinPoint joinPoint) throws Throwable {
+        String service = joinPoint.getSignature().getDeclaringType().getSimpleName();
+        String method = joinPoint.getSignature().getName();
+        Object publisher = joinPoint.proceed();
+        if (publisher instanceof Mono<?> mono) {
+            return observe(mono, service, method);
+        }
+        return observe((Flux<?>) publisher, service, method);
+    }
+
+    <T> Mono<T> observe(Mono<T> mono, String service, String method) {
+        return Mono.deferContextual(context -> {
+            Observation observation = start(context, service, method);
+            return mono.doOnError(observation::error)
+                       .doFinally(signal -> stop(observation, signal))
+                       .contextWrite(inner -> inner.put(ObservationThreadLocalAccessor.KEY, observation));
+        });
+    }
+
+    <T> Flux<T> observe(Flux<T> flux, String service, String method) {
+        return Flux.deferContextual(context -> {
+            Observation observation = start(context, service, method);
+            return flux.doOnError(observation::error)
+                       .doFinally(signal -> stop(observation, signal))
+                       .contextWrite(inner -> inner.put(ObservationThreadLocalAccessor.KEY, observation));
+        });
+    }
+
+    private Observation start(ContextView context, String service, String method) {
+        return Observation.createNotStarted(OBSERVATION, observationRegistry)
+                          .contextualName(service + "." + method)
+                          .parentObservation(context.getOrDefault(ObservationThreadLocalAccessor.KEY, null))
+                          .lowCardinalityKeyValue("class", service)
+                          .lowCardinalityKeyValue("method", method)
+                          .start();
+    }
+
+    private static void stop(Observation observation, SignalType signal) {
+        String outcome = switch (signal) {
+            case ON_ERROR -> "error";
+            case CANCEL -> "cancelled";
+            default -> "success";
+        };
+        observation.lowCardinalityKeyValue("outcome", outcome)
+                   .stop();
+    }
+}
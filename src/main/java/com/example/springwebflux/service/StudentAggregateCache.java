@@ -0,0 +1,100 @@
+package com.example.springwebflux.service;
+
+import com.example.springwebflux.config.StudentCacheProperties;
+import com.example.springwebflux.web.dto.BookDto;
+import com.example.springwebflux.web.dto.StudentDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Caches the serialized JSON of whole student aggregates. Besides the student itself, an entry depends
+ * on every book it lists, so a reverse book to students index is kept to invalidate exactly the
+ * affected entries when a book goes away. Each entry also keeps a hash of its bytes as entity tag, so
+ * conditional requests are answered without serializing again.
+ */
+@Component
+public class StudentAggregateCache {
+
+    private final AsyncCache<Long, CachedStudent> cache;
+    private final ObjectMapper objectMapper;
+    private final Map<Long, Set<Long>> studentsByBook = new ConcurrentHashMap<>();
+
+    public StudentAggregateCache(StudentCacheProperties properties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.cache = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                .maximumSize(properties.maximumSize())
+                .expireAfterWrite(properties.expireAfterWrite())
+                .recordStats()
+                .removalListener(this::onRemoval)
+                .buildAsync(), "students");
+    }
+
+    public Mono<StudentJson> get(Long studentId, Function<Long, Mono<StudentDto>> loader) {
+        return Mono.fromFuture(() -> cache.get(studentId, (id, executor) -> loader.apply(id)
+                                                                                  .flatMap(this::serialize)
+                                                                                  .toFuture()), true)
+                   .map(CachedStudent::student);
+    }
+
+    public void invalidateStudent(Long studentId) {
+        cache.synchronous().invalidate(studentId);
+    }
+
+    public void invalidateBook(Long bookId) {
+        invalidateBooks(List.of(bookId));
+    }
+
+    public void invalidateBooks(Collection<Long> bookIds) {
+        for (Long bookId : bookIds) {
+            Set<Long> studentIds = studentsByBook.remove(bookId);
+            if (studentIds != null) {
+                cache.synchronous().invalidateAll(studentIds);
+            }
+        }
+        // Loads still in flight may have read the books before they changed and are not indexed yet.
+        cache.asMap().values().removeIf(future -> !future.isDone());
+    }
+
+    private void onRemoval(Long studentId, CachedStudent removed, RemovalCause cause) {
+        // A reload of the same student may already have indexed its books again.
+        if (studentId != null && removed != null && cache.getIfPresent(studentId) == null) {
+            untrack(studentId, removed.bookIds());
+        }
+    }
+
+    private Mono<CachedStudent> serialize(StudentDto student) {
+        return Mono.fromCallable(() -> {
+            List<Long> bookIds = student.getBooks().stream()
+                                        .map(BookDto::getId)
+                                        .toList();
+            bookIds.forEach(bookId -> studentsByBook.computeIfAbsent(bookId, id -> ConcurrentHashMap.newKeySet())
+                                                    .add(student.getId()));
+            byte[] json = objectMapper.writeValueAsBytes(student);
+            return new CachedStudent(new StudentJson(json, DigestUtils.md5DigestAsHex(json)), bookIds);
+        });
+    }
+
+    private void untrack(Long studentId, List<Long> bookIds) {
+        bookIds.forEach(bookId -> studentsByBook.computeIfPresent(bookId, (id, studentIds) -> {
+            studentIds.remove(studentId);
+            return studentIds.isEmpty() ? null : studentIds;
+        }));
+    }
+
+    private record CachedStudent(StudentJson student, List<Long> bookIds) {
+    }
+}
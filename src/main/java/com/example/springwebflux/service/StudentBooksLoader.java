@@ -0,0 +1,88 @@
+package com.example.springwebflux.service;
+
+import com.example.springwebflux.config.StudentBooksProperties;
+import com.example.springwebflux.domain.Book;
+import com.example.springwebflux.domain.Student;
+import com.example.springwebflux.domain.StudentBook;
+import com.example.springwebflux.repository.StudentBookRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import reactor.core.observability.micrometer.Micrometer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Loads the books of many students at once: one query over {@code student_book} and one
+ * {@link BookCache} lookup per batch of students, instead of one round trip per student and book.
+ * Both steps are timed per batch as {@code students.books.links} and {@code students.books.lookup}.
+ */
+@Component
+@RequiredArgsConstructor
+public class StudentBooksLoader {
+
+    private final StudentBookRepository studentBookRepository;
+    private final BookCache bookCache;
+    private final StudentBooksProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    public Flux<Student> withBooks(Flux<Student> students) {
+        return students.buffer(properties.batchSize())
+                       .concatMap(this::withBooks);
+    }
+
+    public Mono<Student> withBooks(Student student) {
+        return withBooks(List.of(student)).single();
+    }
+
+    private Flux<Student> withBooks(List<Student> students) {
+        List<Long> studentIds = students.stream()
+                                        .map(Student::getId)
+                                        .toList();
+
+        return studentBookRepository.findAllByStudentIdIn(studentIds)
+                                    .collectList()
+                                    .name("students.books.links")
+                                    .tap(Micrometer.metrics(meterRegistry))
+                                    .flatMapMany(links -> findBooks(links)
+                                            .map(books -> group(students, links, books)))
+                                    .flatMapIterable(grouped -> grouped);
+    }
+
+    private Mono<Map<Long, Book>> findBooks(List<StudentBook> links) {
+        if (links.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        Set<Long> bookIds = new LinkedHashSet<>();
+        links.forEach(link -> bookIds.add(link.getBookId()));
+
+        return bookCache.getAll(bookIds)
+                        .collectMap(Book::getId)
+                        .name("students.books.lookup")
+                        .tap(Micrometer.metrics(meterRegistry));
+    }
+
+    private List<Student> group(List<Student> students, List<StudentBook> links, Map<Long, Book> books) {
+        Map<Long, List<Book>> booksByStudent = new HashMap<>();
+        for (StudentBook link : links) {
+            Book book = books.get(link.getBookId());
+            if (book != null) {
+                booksByStudent.computeIfAbsent(link.getStudentId(), id -> new ArrayList<>())
+                              .add(book);
+            }
+        }
+
+        List<Student> result = new ArrayList<>(students.size());
+        for (Student student : students) {
+            result.add(student.withBooks(booksByStudent.getOrDefault(student.getId(), List.of())));
+        }
+        return result;
+    }
+}
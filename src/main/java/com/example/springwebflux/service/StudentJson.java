@@ -0,0 +1,7 @@
+package com.example.springwebflux.service;
+
+/**
+ * A serialized student aggregate and the entity tag of exactly these bytes.
+ */
+public record StudentJson(byte[] json, String etag) {
+}
@@ -1,75 +1,208 @@
 package com.example.springwebflux.service;
 
+import com.example.springwebflux.config.BulkProperties;
+import com.example.springwebflux.config.PaginationProperties;
+import com.example.springwebflux.domain.ChangeEvent;
+import com.example.springwebflux.domain.EnrolmentStatus;
 import com.example.springwebflux.domain.Student;
 import com.example.springwebflux.domain.StudentBook;
-import com.example.springwebflux.repository.BookRepository;
+import com.example.springwebflux.domain.StudentBookRow;
+import com.example.springwebflux.domain.StudentSummary;
+import com.example.springwebflux.repository.DatabaseRoute;
 import com.example.springwebflux.repository.StudentBookRepository;
 import com.example.springwebflux.repository.StudentRepository;
 import com.example.springwebflux.service.mapper.Mapper;
+import com.example.springwebflux.web.dto.EnrolmentRequest;
+import com.example.springwebflux.web.dto.EnrolmentResult;
 import com.example.springwebflux.web.dto.StudentDto;
 import com.example.springwebflux.web.dto.StudentRequest;
+import com.example.springwebflux.web.dto.StudentSummaryDto;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Function;
 
 @Service
 @RequiredArgsConstructor
 public class StudentService {
 
     private final StudentRepository studentRepository;
-    private final BookRepository bookRepository;
     private final StudentBookRepository studentBookRepository;
     private final Mapper<Student, StudentDto> studentDtoMapper;
+    private final Mapper<StudentSummary, StudentSummaryDto> studentSummaryDtoMapper;
+    private final StudentBooksLoader studentBooksLoader;
+    private final PaginationProperties paginationProperties;
+    private final BulkProperties bulkProperties;
+    private final TransactionalOperator transactionalOperator;
+    private final StudentAggregateCache studentAggregateCache;
+    private final ChangeFeed changeFeed;
 
-    public Mono<List<StudentDto>> getAll() {
-        return studentRepository.findAll()
-                .flatMap(this::enrichWithBooks)
-                .collectList()
-                .map(studentDtoMapper::mapList);
+    /**
+     * Walks every student after {@code after} in keyset pages as flat student/book join rows, for encoders that
+     * write each student as soon as its rows are complete.
+     */
+    public Flux<StudentBookRow> getAllRows(Long after) {
+        return Keyset.streamGrouped(after,
+                                    paginationProperties.streamPageSize(),
+                                    studentRepository::findRowPage,
+                                    StudentBookRow::getStudentId)
+                .contextWrite(DatabaseRoute.REPLICA.context());
+    }
+
+    public Flux<StudentDto> getPage(Long after, int limit) {
+        return studentBooksLoader.withBooks(studentRepository.findPage(Keyset.after(after), limit))
+                .map(studentDtoMapper::map)
+                .contextWrite(DatabaseRoute.REPLICA.context());
+    }
+
+    /**
+     * Same walk as {@link #getAllRows(Long)}, reading only the student columns and no books.
+     */
+    public Flux<StudentSummaryDto> getSummaries(Long after) {
+        return Keyset.stream(after, paginationProperties.streamPageSize(), studentRepository::findSummaryPage, StudentSummary::getId)
+                .map(studentSummaryDtoMapper::map)
+                .contextWrite(DatabaseRoute.REPLICA.context());
+    }
+
+    public Flux<StudentSummaryDto> getSummaryPage(Long after, int limit) {
+        return studentRepository.findSummaryPage(Keyset.after(after), limit)
+                .map(studentSummaryDtoMapper::map)
+                .contextWrite(DatabaseRoute.REPLICA.context());
     }
 
     public Mono<StudentDto> getById(Long id) {
         return studentRepository.findById(id)
-                .flatMap(this::enrichWithBooks)
+                .flatMap(studentBooksLoader::withBooks)
                 .map(studentDtoMapper::map);
     }
 
-    private Mono<Student> enrichWithBooks(Student student) {
-        return studentBookRepository.findBookIdsByStudentId(student.getId())
-                                    .flatMap(bookRepository::findById)
-                                    .collectList()
-                                    .map(student::withBooks);
+    /**
+     * Same aggregate as {@link #getById(Long)}, already serialized to JSON and served from
+     * {@link StudentAggregateCache} when present.
+     */
+    public Mono<StudentJson> getJsonById(Long id) {
+        return studentAggregateCache.get(id, this::getById);
     }
 
     @Transactional
     public Mono<Long> save(StudentRequest request) {
         Student student = new Student(request.getFirstName(), request.getLastName());
         return studentRepository.save(student)
-                .map(Student::getId);
+                .map(Student::getId)
+                .flatMap(id -> changeFeed.publish(List.of(ChangeEvent.created(ChangeEvent.Entity.STUDENT, id))).thenReturn(id));
     }
 
-    @Transactional
+    /**
+     * Inserts students in chunks of {@code app.bulk.chunk-size}, one transaction per chunk. The next chunk is
+     * only requested from the body once the previous one is stored.
+     */
+    public Flux<Long> saveAll(Flux<StudentRequest> requests) {
+        return requests.map(request -> new Student(request.getFirstName(), request.getLastName()))
+                .buffer(bulkProperties.chunkSize())
+                .concatMap(chunk -> transactionalOperator.transactional(studentRepository.insertAll(chunk)
+                                                                                         .collectList()
+                                                                                         .flatMapMany(ids -> changeFeed.publish(events(ids, id -> ChangeEvent.created(ChangeEvent.Entity.STUDENT, id)))
+                                                                                                                       .thenMany(Flux.fromIterable(ids)))), 1);
+    }
+
+    /**
+     * Assigns the book with a single statement that runs in its own implicit transaction, so the caches are
+     * invalidated and the change is published once it is committed.
+     */
     public Mono<Long> addBook(Long studentId, Long bookId) {
-        return Mono.zip(studentRepository.findById(studentId), bookRepository.findById(bookId))
-                .switchIfEmpty(Mono.error(new RuntimeException("No student/book with given id's")))
-                .flatMap(tuple -> studentBookRepository.save(new StudentBook(tuple.getT1().getId(), tuple.getT2().getId())))
-                .map(StudentBook::getId);
+        return studentBookRepository.assign(studentId, bookId)
+                .flatMap(enrolment -> enrolment.getStatus() != EnrolmentStatus.ASSIGNED
+                        ? Mono.error(new EnrolmentException(enrolment.getStatus(), studentId, bookId))
+                        : invalidate(studentId)
+                                .then(changeFeed.publish(List.of(ChangeEvent.enrolled(studentId, bookId))))
+                                .thenReturn(enrolment.getId()));
     }
 
-    @Transactional
-    public Mono<Void> removeBook(Long studentId, Long bookId) {
-        return Mono.zip(studentRepository.findById(studentId), bookRepository.findById(bookId))
-                   .switchIfEmpty(Mono.error(new RuntimeException("No student/book with given id's")))
-                   .flatMap(tuple -> studentBookRepository.deleteByStudentIdAndBookId(tuple.getT1().getId(), tuple.getT2().getId()));
+    /**
+     * Assigns books to students in chunks of {@code app.bulk.chunk-size}, with a single statement per chunk
+     * that validates both ids and skips pairs that are already assigned.
+     */
+    public Flux<EnrolmentResult> addBooks(Flux<EnrolmentRequest> requests) {
+        return requests.buffer(bulkProperties.chunkSize())
+                .concatMap(this::addBooks, 1);
+    }
+
+    private Flux<EnrolmentResult> addBooks(List<EnrolmentRequest> requests) {
+        List<StudentBook> pairs = new ArrayList<>(requests.size());
+        requests.forEach(request -> pairs.add(new StudentBook(request.getStudentId(), request.getBookId())));
+
+        Runnable invalidateStudents = () -> requests.forEach(request -> studentAggregateCache.invalidateStudent(request.getStudentId()));
 
+        Mono<List<EnrolmentResult>> results = studentBookRepository.assignAll(pairs)
+                .index()
+                .map(status -> {
+                    EnrolmentRequest request = requests.get(status.getT1().intValue());
+                    return new EnrolmentResult(request.getStudentId(), request.getBookId(), status.getT2());
+                })
+                .collectList();
+
+        return transactionalOperator.transactional(AfterCommit.run(invalidateStudents)
+                                                              .then(results)
+                                                              .flatMapMany(chunk -> changeFeed.publish(enrolled(chunk))
+                                                                                              .thenMany(Flux.fromIterable(chunk))));
+    }
+
+    /**
+     * Unassigns the book with a single statement, see {@link #addBook(Long, Long)}.
+     */
+    public Mono<Void> removeBook(Long studentId, Long bookId) {
+        return studentBookRepository.unassign(studentId, bookId)
+                .flatMap(enrolment -> enrolment.getStatus() != EnrolmentStatus.UNASSIGNED
+                        ? Mono.error(new EnrolmentException(enrolment.getStatus(), studentId, bookId))
+                        : invalidate(studentId)
+                                .then(changeFeed.publish(List.of(ChangeEvent.unenrolled(studentId, bookId)))));
     }
 
     @Transactional
     public Mono<Void> remove(Long id) {
-        return studentBookRepository.deleteByStudentId(id)
-                .then(studentRepository.deleteById(id));
+        return removeChunk(List.of(id)).then();
+    }
+
+    /**
+     * Deletes students in chunks of {@code app.bulk.chunk-size}, one statement and transaction per chunk; their
+     * enrolments go with them through the cascading foreign keys. Emits the ids that existed.
+     */
+    public Flux<Long> removeAll(Flux<Long> ids) {
+        return ids.buffer(bulkProperties.chunkSize())
+                .concatMap(chunk -> transactionalOperator.transactional(removeChunk(chunk)), 1);
+    }
+
+    private Flux<Long> removeChunk(List<Long> ids) {
+        return studentRepository.removeAll(ids)
+                .collectList()
+                .flatMapMany(removed -> AfterCommit.run(() -> removed.forEach(studentAggregateCache::invalidateStudent))
+                                                   .then(changeFeed.publish(events(removed, id -> ChangeEvent.deleted(ChangeEvent.Entity.STUDENT, id))))
+                                                   .thenMany(Flux.fromIterable(removed)));
+    }
+
+    private static List<ChangeEvent> events(List<Long> ids, Function<Long, ChangeEvent> event) {
+        List<ChangeEvent> events = new ArrayList<>(ids.size());
+        ids.forEach(id -> events.add(event.apply(id)));
+        return events;
+    }
+
+    private static List<ChangeEvent> enrolled(List<EnrolmentResult> results) {
+        List<ChangeEvent> events = new ArrayList<>();
+        results.forEach(result -> {
+            if (result.getStatus() == EnrolmentStatus.ASSIGNED) {
+                events.add(ChangeEvent.enrolled(result.getStudentId(), result.getBookId()));
+            }
+        });
+        return events;
+    }
+
+    private Mono<Void> invalidate(Long studentId) {
+        return AfterCommit.run(() -> studentAggregateCache.invalidateStudent(studentId));
     }
 }
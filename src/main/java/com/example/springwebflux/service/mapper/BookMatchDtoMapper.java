@@ -0,0 +1,19 @@
+package com.example.springwebflux.service.mapper;
+
+import com.example.springwebflux.domain.BookMatch;
+import com.example.springwebflux.web.dto.BookMatchDto;
+import org.springframework.stereotype.Component;
+
+@Component
+class BookMatchDtoMapper implements Mapper<BookMatch, BookMatchDto> {
+
+    @Override
+    public BookMatchDto map(BookMatch entity) {
+        return new BookMatchDto(
+                entity.getId(),
+                entity.getTitle(),
+                entity.getAuthor(),
+                entity.getRank()
+        );
+    }
+}
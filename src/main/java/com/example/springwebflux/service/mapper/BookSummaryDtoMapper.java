@@ -0,0 +1,18 @@
+package com.example.springwebflux.service.mapper;
+
+import com.example.springwebflux.domain.BookSummary;
+import com.example.springwebflux.web.dto.BookSummaryDto;
+import org.springframework.stereotype.Component;
+
+@Component
+class BookSummaryDtoMapper implements Mapper<BookSummary, BookSummaryDto> {
+
+    @Override
+    public BookSummaryDto map(BookSummary entity) {
+        return new BookSummaryDto(
+                entity.getId(),
+                entity.getTitle(),
+                entity.getAuthor()
+        );
+    }
+}
@@ -1,14 +1,19 @@
 package com.example.springwebflux.service.mapper;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 public interface Mapper<T, U> {
     U map(T entity);
 
+    /**
+     * Maps into a list presized to the input, without going through a stream and collector.
+     */
     default List<U> mapList(List<T> entityList) {
-        return entityList.stream()
-                         .map(this::map)
-                         .collect(Collectors.toList());
+        List<U> result = new ArrayList<>(entityList.size());
+        for (T entity : entityList) {
+            result.add(map(entity));
+        }
+        return result;
     }
 }
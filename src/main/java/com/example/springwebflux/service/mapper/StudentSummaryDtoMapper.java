@@ -0,0 +1,18 @@
+package com.example.springwebflux.service.mapper;
+
+import com.example.springwebflux.domain.StudentSummary;
+import com.example.springwebflux.web.dto.StudentSummaryDto;
+import org.springframework.stereotype.Component;
+
+@Component
+class StudentSummaryDtoMapper implements Mapper<StudentSummary, StudentSummaryDto> {
+
+    @Override
+    public StudentSummaryDto map(StudentSummary entity) {
+        return new StudentSummaryDto(
+                entity.getId(),
+                entity.getFirstName(),
+                entity.getLastName()
+        );
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.springwebflux.web.codec;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+import java.io.OutputStream;
+
+/**
+ * Target of a response's generator: bytes go straight into a buffer from the response's factory, pooled under Reactor
+ * Netty, which is allocated on the first write after the last {@link #take()} and sized to that write. A generator
+ * flushes its whole content in one write, so the buffer rarely has to grow.
+ */
+class DataBufferOutputStream extends OutputStream {
+
+    private final DataBufferFactory bufferFactory;
+    private DataBuffer buffer;
+
+    DataBufferOutputStream(DataBufferFactory bufferFactory) {
+        this.bufferFactory = bufferFactory;
+    }
+
+    @Override
+    public void write(int b) {
+        buffer(1).write((byte) b);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        buffer(length).write(bytes, offset, length);
+    }
+
+    /**
+     * Hands over what was written since the last call; {@code null} when that is nothing.
+     */
+    DataBuffer take() {
+        DataBuffer taken = buffer;
+        buffer = null;
+        return taken;
+    }
+
+    /**
+     * Releases what was written but never taken, e.g. when the response fails or is cancelled halfway.
+     */
+    @Override
+    public void close() {
+        DataBufferUtils.release(take());
+    }
+
+    private DataBuffer buffer(int length) {
+        if (buffer == null) {
+            buffer = bufferFactory.allocateBuffer(length);
+        }
+        return buffer;
+    }
+}
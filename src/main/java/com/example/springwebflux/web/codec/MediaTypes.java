@@ -0,0 +1,23 @@
+package com.example.springwebflux.web.codec;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Media types for the binary Smile format, served alongside JSON to clients that ask for it.
+ */
+public final class MediaTypes {
+
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    public static final MediaType APPLICATION_SMILE = MediaType.parseMediaType(APPLICATION_SMILE_VALUE);
+
+    /**
+     * Smile values written back to back without an enclosing array, flushed one by one like NDJSON.
+     */
+    public static final String APPLICATION_STREAM_SMILE_VALUE = "application/stream+x-jackson-smile";
+
+    public static final MediaType APPLICATION_STREAM_SMILE = MediaType.parseMediaType(APPLICATION_STREAM_SMILE_VALUE);
+
+    private MediaTypes() {
+    }
+}
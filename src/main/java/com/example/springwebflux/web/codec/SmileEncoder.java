@@ -0,0 +1,104 @@
+package com.example.springwebflux.web.codec;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.EncodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.codec.json.Jackson2CodecSupport;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * {@link Jackson2SmileEncoder} for both Smile media types. The stock encoder frames a non-streaming flux with JSON
+ * brackets and commas, which is not valid Smile, so such a flux is written as one Smile array value instead, element
+ * by element through a single generator.
+ */
+public class SmileEncoder extends Jackson2SmileEncoder {
+
+    public SmileEncoder(ObjectMapper smileMapper) {
+        super(smileMapper, MediaTypes.APPLICATION_SMILE, MediaTypes.APPLICATION_STREAM_SMILE);
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(Publisher<?> inputStream,
+                                   DataBufferFactory bufferFactory,
+                                   ResolvableType elementType,
+                                   MimeType mimeType,
+                                   Map<String, Object> hints) {
+        if (inputStream instanceof Mono || MediaTypes.APPLICATION_STREAM_SMILE.isCompatibleWith(mimeType)) {
+            return super.encode(inputStream, bufferFactory, elementType, mimeType, hints);
+        }
+        ObjectWriter writer = writer(elementType, mimeType, hints);
+        return Flux.using(() -> new Output(getObjectMapper(), bufferFactory),
+                          output -> Flux.concat(Mono.fromCallable(output::start),
+                                                Flux.from(inputStream).map(value -> output.write(writer, value)),
+                                                Mono.fromCallable(output::end)),
+                          Output::close);
+    }
+
+    private ObjectWriter writer(ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+        Class<?> view = hints != null ? (Class<?>) hints.get(Jackson2CodecSupport.JSON_VIEW_HINT) : null;
+        ObjectWriter writer = view != null ? getObjectMapper().writerWithView(view) : getObjectMapper().writer();
+        writer = writer.forType(getJavaType(elementType.getType(), null));
+        return customizeWriter(writer, mimeType, elementType, hints);
+    }
+
+    /**
+     * One generator per response, so the Smile header and the array are opened once. It writes straight into buffers
+     * from the response's factory, one per call; {@code null} when that call wrote nothing.
+     */
+    private static final class Output {
+
+        private final DataBufferOutputStream out;
+        private final JsonGenerator generator;
+
+        private Output(ObjectMapper mapper, DataBufferFactory bufferFactory) throws IOException {
+            out = new DataBufferOutputStream(bufferFactory);
+            generator = mapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+        }
+
+        private DataBuffer start() throws IOException {
+            generator.writeStartArray();
+            return drain();
+        }
+
+        private DataBuffer write(ObjectWriter writer, Object value) {
+            try {
+                writer.writeValue(generator, value);
+                return drain();
+            } catch (IOException e) {
+                throw new EncodingException("Could not write " + value.getClass().getSimpleName(), e);
+            }
+        }
+
+        private DataBuffer end() throws IOException {
+            generator.writeEndArray();
+            return drain();
+        }
+
+        private DataBuffer drain() throws IOException {
+            generator.flush();
+            return out.take();
+        }
+
+        private void close() {
+            try {
+                generator.close();
+            } catch (IOException e) {
+                throw new EncodingException("Could not close generator", e);
+            } finally {
+                out.close();
+            }
+        }
+    }
+}
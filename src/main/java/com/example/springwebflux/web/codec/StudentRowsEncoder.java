@@ -0,0 +1,178 @@
+package com.example.springwebflux.web.codec;
+
+import com.example.springwebflux.domain.StudentBookRow;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import lombok.RequiredArgsConstructor;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.EncodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.HttpMessageEncoder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a flux of {@link StudentBookRow}s as {@code StudentDto}s in JSON, NDJSON or Smile, one student per buffer as
+ * soon as its last row has arrived. Only the rows of the current student are held, never the whole result.
+ */
+@RequiredArgsConstructor
+public class StudentRowsEncoder implements HttpMessageEncoder<StudentBookRow> {
+
+    private static final List<MimeType> MIME_TYPES = List.of(MediaType.APPLICATION_JSON,
+                                                             MediaType.APPLICATION_NDJSON,
+                                                             MediaTypes.APPLICATION_SMILE,
+                                                             MediaTypes.APPLICATION_STREAM_SMILE);
+
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper smileMapper;
+
+    @Override
+    public boolean canEncode(ResolvableType elementType, MimeType mimeType) {
+        return StudentBookRow.class.isAssignableFrom(elementType.toClass())
+                && (mimeType == null || MIME_TYPES.stream().anyMatch(type -> type.isCompatibleWith(mimeType)));
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(Publisher<? extends StudentBookRow> inputStream,
+                                   DataBufferFactory bufferFactory,
+                                   ResolvableType elementType,
+                                   MimeType mimeType,
+                                   Map<String, Object> hints) {
+        Flux<List<StudentBookRow>> students = Flux.<StudentBookRow>from(inputStream)
+                                                  .bufferUntilChanged(StudentBookRow::getStudentId);
+        return Flux.using(() -> new Output(mimeType, bufferFactory),
+                          output -> Flux.concat(Mono.fromCallable(output::start),
+                                                students.map(output::write),
+                                                Mono.fromCallable(output::end)),
+                          Output::close);
+    }
+
+    @Override
+    public List<MimeType> getEncodableMimeTypes() {
+        return MIME_TYPES;
+    }
+
+    @Override
+    public List<MediaType> getStreamingMediaTypes() {
+        return List.of(MediaType.APPLICATION_NDJSON, MediaTypes.APPLICATION_STREAM_SMILE);
+    }
+
+    private static void writeStudent(List<StudentBookRow> rows, JsonGenerator generator,
+                                     SerializerProvider provider, JsonSerializer<Object> timestamps)
+            throws IOException {
+        StudentBookRow student = rows.get(0);
+        generator.writeStartObject();
+        generator.writeNumberField("id", student.getStudentId());
+        generator.writeStringField("firstName", student.getFirstName());
+        generator.writeStringField("lastName", student.getLastName());
+        generator.writeArrayFieldStart("books");
+        for (StudentBookRow row : rows) {
+            if (row.getBookId() == null) {
+                continue;
+            }
+            generator.writeStartObject();
+            generator.writeNumberField("id", row.getBookId());
+            generator.writeStringField("title", row.getTitle());
+            generator.writeStringField("author", row.getAuthor());
+            writeTimestamp("createdAt", row.getCreatedAt(), generator, provider, timestamps);
+            writeTimestamp("lastModifiedAt", row.getLastModifiedAt(), generator, provider, timestamps);
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    private static void writeTimestamp(String name, LocalDateTime value, JsonGenerator generator,
+                                       SerializerProvider provider, JsonSerializer<Object> timestamps)
+            throws IOException {
+        generator.writeFieldName(name);
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            timestamps.serialize(value, generator, provider);
+        }
+    }
+
+    /**
+     * One generator per response, so array separators and the Smile header are written once, and one serializer
+     * provider, so the timestamp serializer is looked up once rather than per field. The generator writes straight
+     * into buffers from the response's factory, one per call; {@code null} when that call wrote nothing.
+     */
+    private final class Output {
+
+        private final DataBufferOutputStream out;
+        private final JsonGenerator generator;
+        private final SerializerProvider provider;
+        private final JsonSerializer<Object> timestamps;
+        private final boolean array;
+        private final boolean lineDelimited;
+
+        private Output(MimeType mimeType, DataBufferFactory bufferFactory) throws IOException {
+            out = new DataBufferOutputStream(bufferFactory);
+            boolean smile = MediaTypes.APPLICATION_SMILE.isCompatibleWith(mimeType)
+                    || MediaTypes.APPLICATION_STREAM_SMILE.isCompatibleWith(mimeType);
+            lineDelimited = MediaType.APPLICATION_NDJSON.isCompatibleWith(mimeType);
+            array = !lineDelimited && !MediaTypes.APPLICATION_STREAM_SMILE.isCompatibleWith(mimeType);
+            ObjectMapper mapper = smile ? smileMapper : jsonMapper;
+            generator = mapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+            provider = mapper.getSerializerProviderInstance();
+            timestamps = provider.findValueSerializer(LocalDateTime.class);
+            if (lineDelimited) {
+                generator.setRootValueSeparator(null);
+            }
+        }
+
+        private DataBuffer start() throws IOException {
+            if (array) {
+                generator.writeStartArray();
+            }
+            return drain();
+        }
+
+        private DataBuffer write(List<StudentBookRow> rows) {
+            try {
+                writeStudent(rows, generator, provider, timestamps);
+                if (lineDelimited) {
+                    generator.writeRaw('\n');
+                }
+                return drain();
+            } catch (IOException e) {
+                throw new EncodingException("Could not write student " + rows.get(0).getStudentId(), e);
+            }
+        }
+
+        private DataBuffer end() throws IOException {
+            if (array) {
+                generator.writeEndArray();
+            }
+            return drain();
+        }
+
+        private DataBuffer drain() throws IOException {
+            generator.flush();
+            return out.take();
+        }
+
+        private void close() {
+            try {
+                generator.close();
+            } catch (IOException e) {
+                throw new EncodingException("Could not close generator", e);
+            } finally {
+                out.close();
+            }
+        }
+    }
+}
@@ -1,10 +1,18 @@
 package com.example.springwebflux.web.controller;
 
+import com.example.springwebflux.config.PaginationProperties;
 import com.example.springwebflux.service.BookService;
+import com.example.springwebflux.web.codec.MediaTypes;
 import com.example.springwebflux.web.dto.BookDto;
+import com.example.springwebflux.web.dto.BookMatchDto;
 import com.example.springwebflux.web.dto.BookRequest;
+import com.example.springwebflux.web.dto.BookSummaryDto;
+import com.example.springwebflux.web.dto.StudentSummaryDto;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -12,10 +20,13 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.util.List;
+import java.time.Instant;
+import java.time.ZoneId;
 
 @RestController
 @RequestMapping("/api/books")
@@ -23,17 +34,86 @@ import java.util.List;
 public class BookController {
 
     private final BookService bookService;
+    private final PaginationProperties paginationProperties;
 
-    @GetMapping
-    public Mono<ResponseEntity<List<BookDto>>> get() {
-        return bookService.getAll()
-                .map(ResponseEntity::ok);
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE,
+                            MediaTypes.APPLICATION_SMILE_VALUE, MediaTypes.APPLICATION_STREAM_SMILE_VALUE})
+    public ResponseEntity<Flux<BookDto>> get(@RequestParam(required = false) Long after) {
+        return ResponseEntity.ok(bookService.getAll(after));
     }
 
+    @GetMapping(params = "limit", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE,
+                                              MediaTypes.APPLICATION_SMILE_VALUE, MediaTypes.APPLICATION_STREAM_SMILE_VALUE})
+    public Mono<ResponseEntity<Flux<BookDto>>> getPage(@RequestParam int limit,
+                                                       @RequestParam(required = false) Long after) {
+        int pageSize = paginationProperties.clamp(limit);
+        return Pagination.page(bookService.getPage(after, pageSize), pageSize, BookDto::getId);
+    }
+
+    /**
+     * {@code view=summary}: the same listing without audit columns and nested books. Any other view is the full one.
+     */
+    @GetMapping(params = "view=summary", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE,
+                                                     MediaTypes.APPLICATION_SMILE_VALUE, MediaTypes.APPLICATION_STREAM_SMILE_VALUE})
+    public ResponseEntity<Flux<BookSummaryDto>> getSummaries(@RequestParam(required = false) Long after) {
+        return ResponseEntity.ok(bookService.getSummaries(after));
+    }
+
+    @GetMapping(params = {"view=summary", "limit"}, produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE,
+                                                                MediaTypes.APPLICATION_SMILE_VALUE, MediaTypes.APPLICATION_STREAM_SMILE_VALUE})
+    public Mono<ResponseEntity<Flux<BookSummaryDto>>> getSummaryPage(@RequestParam int limit,
+                                                                     @RequestParam(required = false) Long after) {
+        int pageSize = paginationProperties.clamp(limit);
+        return Pagination.page(bookService.getSummaryPage(after, pageSize), pageSize, BookSummaryDto::getId);
+    }
+
+    @GetMapping(value = "/search", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE,
+                                               MediaTypes.APPLICATION_SMILE_VALUE, MediaTypes.APPLICATION_STREAM_SMILE_VALUE})
+    public Mono<ResponseEntity<Flux<BookMatchDto>>> search(@RequestParam String q,
+                                                           @RequestParam(defaultValue = "20") int limit,
+                                                           @RequestParam(required = false) String after) {
+        int pageSize = paginationProperties.clamp(limit);
+        SearchCursor cursor = SearchCursor.parse(after);
+        return Pagination.page(bookService.search(q, cursor.rank(), cursor.id(), pageSize),
+                               pageSize,
+                               match -> SearchCursor.of(match.getRank(), match.getId()));
+    }
+
+    /**
+     * Sends {@code lastModifiedAt} as {@code Last-Modified} and as a weak {@code ETag}, so unchanged books are
+     * answered with 304 from the book cache without serializing. The tag is weak because the JSON and Smile bodies
+     * share it.
+     */
     @GetMapping("/{id}")
     public Mono<ResponseEntity<BookDto>> getById(@PathVariable Long id) {
         return bookService.getById(id)
-                .map(ResponseEntity::ok);
+                .map(book -> {
+                    ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                                                                      .cacheControl(CacheControl.noCache())
+                                                                      .varyBy(HttpHeaders.ACCEPT);
+                    if (book.getLastModifiedAt() != null) {
+                        Instant lastModified = book.getLastModifiedAt().atZone(ZoneId.systemDefault()).toInstant();
+                        response.eTag("W/\"" + lastModified.toEpochMilli() + "\"")
+                                .lastModified(lastModified);
+                    }
+                    return response.body(book);
+                });
+    }
+
+    @GetMapping(value = "/{id}/students", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE,
+                                                      MediaTypes.APPLICATION_SMILE_VALUE, MediaTypes.APPLICATION_STREAM_SMILE_VALUE})
+    public ResponseEntity<Flux<StudentSummaryDto>> getStudents(@PathVariable Long id,
+                                                               @RequestParam(required = false) Long after) {
+        return ResponseEntity.ok(bookService.getStudents(id, after));
+    }
+
+    @GetMapping(value = "/{id}/students", params = "limit", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE,
+                                                                        MediaTypes.APPLICATION_SMILE_VALUE, MediaTypes.APPLICATION_STREAM_SMILE_VALUE})
+    public Mono<ResponseEntity<Flux<StudentSummaryDto>>> getStudentsPage(@PathVariable Long id,
+                                                                         @RequestParam int limit,
+                                                                         @RequestParam(required = false) Long after) {
+        int pageSize = paginationProperties.clamp(limit);
+        return Pagination.page(bookService.getStudentsPage(id, after, pageSize), pageSize, StudentSummaryDto::getId);
     }
 
     @PostMapping
@@ -42,6 +122,27 @@ public class BookController {
                 .map(id -> new ResponseEntity<>(id, HttpStatus.CREATED));
     }
 
+    @PostMapping(value = "/bulk",
+                 consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE,
+                             MediaTypes.APPLICATION_SMILE_VALUE, MediaTypes.APPLICATION_STREAM_SMILE_VALUE},
+                 produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE,
+                             MediaTypes.APPLICATION_SMILE_VALUE, MediaTypes.APPLICATION_STREAM_SMILE_VALUE})
+    public ResponseEntity<Flux<Long>> addAll(@RequestBody Flux<BookRequest> requests) {
+        return new ResponseEntity<>(bookService.saveAll(requests), HttpStatus.CREATED);
+    }
+
+    /**
+     * Deletes the books with the ids in the body and streams back the ids that existed.
+     */
+    @PostMapping(value = "/bulk-delete",
+                 consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE,
+                             MediaTypes.APPLICATION_SMILE_VALUE, MediaTypes.APPLICATION_STREAM_SMILE_VALUE},
+                 produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE,
+                             MediaTypes.APPLICATION_SMILE_VALUE, MediaTypes.APPLICATION_STREAM_SMILE_VALUE})
+    public ResponseEntity<Flux<Long>> removeAll(@RequestBody Flux<Long> ids) {
+        return ResponseEntity.ok(bookService.removeAll(ids));
+    }
+
     @DeleteMapping("/{id}")
     public Mono<ResponseEntity<Void>> remove(@PathVariable Long id) {
         return bookService.remove(id)
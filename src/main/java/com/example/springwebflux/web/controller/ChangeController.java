@@ -0,0 +1,40 @@
+package com.example.springwebflux.web.controller;
+
+import com.example.springwebflux.config.ChangeStreamProperties;
+import com.example.springwebflux.domain.ChangeEvent;
+import com.example.springwebflux.service.ChangeFeed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/changes")
+@RequiredArgsConstructor
+public class ChangeController {
+
+    private final ChangeFeed changeFeed;
+    private final ChangeStreamProperties changeStreamProperties;
+
+    /**
+     * Streams committed changes as server-sent events named after the entity, optionally only for the given
+     * entities. Heartbeat comments keep idle connections open through proxies.
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<ChangeEvent>> stream(@RequestParam(required = false) Set<ChangeEvent.Entity> entity) {
+        Flux<ServerSentEvent<ChangeEvent>> events = changeFeed.subscribe()
+                .filter(event -> entity == null || entity.contains(event.getEntity()))
+                .map(event -> ServerSentEvent.builder(event)
+                                             .event(event.getEntity().name().toLowerCase())
+                                             .build());
+        Flux<ServerSentEvent<ChangeEvent>> heartbeats = Flux.interval(changeStreamProperties.heartbeatInterval())
+                .map(tick -> ServerSentEvent.<ChangeEvent>builder().comment("heartbeat").build());
+        return Flux.merge(events, heartbeats);
+    }
+}
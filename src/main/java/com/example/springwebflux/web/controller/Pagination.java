@@ -0,0 +1,30 @@
+package com.example.springwebflux.web.controller;
+
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Function;
+
+final class Pagination {
+
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private Pagination() {
+    }
+
+    /**
+     * Buffers a single page so the cursor of its last element can be sent as a header
+     * before the body; a short page means there is nothing after it.
+     */
+    static <T> Mono<ResponseEntity<Flux<T>>> page(Flux<T> items, int limit, Function<T, ?> cursor) {
+        return items.collectList()
+                    .map(page -> {
+                        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+                        if (page.size() == limit) {
+                            response.header(NEXT_CURSOR_HEADER, String.valueOf(cursor.apply(page.get(page.size() - 1))));
+                        }
+                        return response.body(Flux.fromIterable(page));
+                    });
+    }
+}
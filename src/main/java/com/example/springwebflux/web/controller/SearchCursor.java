@@ -0,0 +1,28 @@
+package com.example.springwebflux.web.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Cursor of ranked search results: the rank and id of the last result, as {@code <rank>:<id>}.
+ */
+record SearchCursor(Float rank, Long id) {
+
+    static final SearchCursor FIRST = new SearchCursor(null, null);
+
+    static String of(Float rank, Long id) {
+        return rank + ":" + id;
+    }
+
+    static SearchCursor parse(String cursor) {
+        if (cursor == null) {
+            return FIRST;
+        }
+        int separator = cursor.indexOf(':');
+        try {
+            return new SearchCursor(Float.valueOf(cursor.substring(0, separator)), Long.valueOf(cursor.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor '" + cursor + "'", e);
+        }
+    }
+}
@@ -1,21 +1,40 @@
 package com.example.springwebflux.web.controller;
 
+import com.example.springwebflux.config.PaginationProperties;
+import com.example.springwebflux.domain.EnrolmentStatus;
+import com.example.springwebflux.domain.StudentBookRow;
+import com.example.springwebflux.service.EnrolmentBuffer;
+import com.example.springwebflux.service.EnrolmentException;
+import com.example.springwebflux.service.StudentJson;
 import com.example.springwebflux.service.StudentService;
+import com.example.springwebflux.web.codec.MediaTypes;
+import com.example.springwebflux.web.dto.EnrolmentRequest;
+import com.example.springwebflux.web.dto.EnrolmentResult;
 import com.example.springwebflux.web.dto.StudentDto;
 import com.example.springwebflux.web.dto.StudentRequest;
+import com.example.springwebflux.web.dto.StudentSummaryDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 
 @RestController
 @RequestMapping("/api/students")
@@ -23,17 +42,72 @@ import java.util.List;
 public class StudentController {
 
     private final StudentService studentService;
+    private final EnrolmentBuffer enrolmentBuffer;
+    private final PaginationProperties paginationProperties;
+    private final ObjectMapper objectMapper;
 
-    @GetMapping
-    public Mono<ResponseEntity<List<StudentDto>>> get() {
-        return studentService.getAll()
-                             .map(ResponseEntity::ok);
+    /**
+     * Streams the join rows; {@link com.example.springwebflux.web.codec.StudentRowsEncoder} writes them as
+     * {@link StudentDto}s one student at a time.
+     */
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE,
+                            MediaTypes.APPLICATION_SMILE_VALUE, MediaTypes.APPLICATION_STREAM_SMILE_VALUE})
+    public ResponseEntity<Flux<StudentBookRow>> get(@RequestParam(required = false) Long after) {
+        return ResponseEntity.ok(studentService.getAllRows(after));
     }
 
-    @GetMapping("/{id}")
-    public Mono<ResponseEntity<StudentDto>> getById(@PathVariable Long id) {
-        return studentService.getById(id)
-                             .map(ResponseEntity::ok);
+    @GetMapping(params = "limit", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE,
+                                              MediaTypes.APPLICATION_SMILE_VALUE, MediaTypes.APPLICATION_STREAM_SMILE_VALUE})
+    public Mono<ResponseEntity<Flux<StudentDto>>> getPage(@RequestParam int limit,
+                                                          @RequestParam(required = false) Long after) {
+        int pageSize = paginationProperties.clamp(limit);
+        return Pagination.page(studentService.getPage(after, pageSize), pageSize, StudentDto::getId);
+    }
+
+    /**
+     * {@code view=summary}: the same listing without audit columns and nested books. Any other view is the full one.
+     */
+    @GetMapping(params = "view=summary", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE,
+                                                     MediaTypes.APPLICATION_SMILE_VALUE, MediaTypes.APPLICATION_STREAM_SMILE_VALUE})
+    public ResponseEntity<Flux<StudentSummaryDto>> getSummaries(@RequestParam(required = false) Long after) {
+        return ResponseEntity.ok(studentService.getSummaries(after));
+    }
+
+    @GetMapping(params = {"view=summary", "limit"}, produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE,
+                                                                MediaTypes.APPLICATION_SMILE_VALUE, MediaTypes.APPLICATION_STREAM_SMILE_VALUE})
+    public Mono<ResponseEntity<Flux<StudentSummaryDto>>> getSummaryPage(@RequestParam int limit,
+                                                                        @RequestParam(required = false) Long after) {
+        int pageSize = paginationProperties.clamp(limit);
+        return Pagination.page(studentService.getSummaryPage(after, pageSize), pageSize, StudentSummaryDto::getId);
+    }
+
+    /**
+     * Sends the cached aggregate's hash as {@code ETag}; a matching {@code If-None-Match} is answered with
+     * 304 and no body.
+     */
+    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<byte[]>> getById(@PathVariable Long id) {
+        return studentService.getJsonById(id)
+                             .map(student -> ResponseEntity.ok()
+                                                           .contentType(MediaType.APPLICATION_JSON)
+                                                           .cacheControl(CacheControl.noCache())
+                                                           .varyBy(HttpHeaders.ACCEPT)
+                                                           .eTag(student.etag())
+                                                           .body(student.json()));
+    }
+
+    /**
+     * The Smile representation is re-encoded from the cached JSON aggregate on each request. Its {@code ETag} is the
+     * JSON one with the media type folded in, since the bytes differ.
+     */
+    @GetMapping(value = "/{id}", produces = MediaTypes.APPLICATION_SMILE_VALUE)
+    public Mono<ResponseEntity<StudentDto>> getSmileById(@PathVariable Long id) {
+        return studentService.getJsonById(id)
+                             .map(student -> ResponseEntity.ok()
+                                                           .cacheControl(CacheControl.noCache())
+                                                           .varyBy(HttpHeaders.ACCEPT)
+                                                           .eTag(student.etag() + "-smile")
+                                                           .body(read(student)));
     }
 
     @PostMapping
@@ -42,23 +116,90 @@ public class StudentController {
                              .map(id -> new ResponseEntity<>(id, HttpStatus.CREATED));
     }
 
+    @PostMapping(value = "/bulk",
+                 consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE,
+                             MediaTypes.APPLICATION_SMILE_VALUE, MediaTypes.APPLICATION_STREAM_SMILE_VALUE},
+                 produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE,
+                             MediaTypes.APPLICATION_SMILE_VALUE, MediaTypes.APPLICATION_STREAM_SMILE_VALUE})
+    public ResponseEntity<Flux<Long>> addAll(@RequestBody Flux<StudentRequest> requests) {
+        return new ResponseEntity<>(studentService.saveAll(requests), HttpStatus.CREATED);
+    }
+
+    /**
+     * With the enrolment buffer enabled the change is only queued: 202 once queued, or 204 once committed when
+     * {@code ack} is set. Otherwise it is written right away and the new row id returned.
+     */
     @PostMapping("/{studentId}/books/{bookId}")
     public Mono<ResponseEntity<Long>> addBook(@PathVariable Long studentId,
-                                              @PathVariable Long bookId) {
+                                              @PathVariable Long bookId,
+                                              @RequestParam(defaultValue = "false") boolean ack) {
+        if (enrolmentBuffer.isEnabled()) {
+            return enrolmentBuffer.add(studentId, bookId, ack)
+                                  .then(Mono.fromSupplier(() -> buffered(ack)));
+        }
         return studentService.addBook(studentId, bookId)
                              .map(ResponseEntity::ok);
     }
 
+    @PostMapping(value = "/books",
+                 consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE,
+                             MediaTypes.APPLICATION_SMILE_VALUE, MediaTypes.APPLICATION_STREAM_SMILE_VALUE},
+                 produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE,
+                             MediaTypes.APPLICATION_SMILE_VALUE, MediaTypes.APPLICATION_STREAM_SMILE_VALUE})
+    public ResponseEntity<Flux<EnrolmentResult>> addBooks(@RequestBody Flux<EnrolmentRequest> requests) {
+        return ResponseEntity.ok(studentService.addBooks(requests));
+    }
+
+    /**
+     * Queued like {@link #addBook(Long, Long, boolean)} when the enrolment buffer is enabled.
+     */
     @DeleteMapping("/{studentId}/books/{bookId}")
     public Mono<ResponseEntity<Void>> removeBook(@PathVariable Long studentId,
-                                                 @PathVariable Long bookId) {
+                                                 @PathVariable Long bookId,
+                                                 @RequestParam(defaultValue = "false") boolean ack) {
+        if (enrolmentBuffer.isEnabled()) {
+            return enrolmentBuffer.remove(studentId, bookId, ack)
+                                  .then(Mono.fromSupplier(() -> buffered(ack)));
+        }
         return studentService.removeBook(studentId, bookId)
                              .then(Mono.just(ResponseEntity.noContent().build()));
     }
 
+    /**
+     * Deletes the students with the ids in the body and streams back the ids that existed.
+     */
+    @PostMapping(value = "/bulk-delete",
+                 consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE,
+                             MediaTypes.APPLICATION_SMILE_VALUE, MediaTypes.APPLICATION_STREAM_SMILE_VALUE},
+                 produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE,
+                             MediaTypes.APPLICATION_SMILE_VALUE, MediaTypes.APPLICATION_STREAM_SMILE_VALUE})
+    public ResponseEntity<Flux<Long>> removeAll(@RequestBody Flux<Long> ids) {
+        return ResponseEntity.ok(studentService.removeAll(ids));
+    }
+
     @DeleteMapping("/{id}")
     public Mono<ResponseEntity<Void>> remove(@PathVariable Long id) {
         return studentService.remove(id)
                              .then(Mono.just(ResponseEntity.noContent().build()));
     }
+
+    private static <T> ResponseEntity<T> buffered(boolean ack) {
+        return ack ? ResponseEntity.noContent().build() : ResponseEntity.accepted().build();
+    }
+
+    private StudentDto read(StudentJson student) {
+        try {
+            return objectMapper.readValue(student.json(), StudentDto.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read cached student", e);
+        }
+    }
+
+    @ExceptionHandler(EnrolmentException.class)
+    public ResponseEntity<ProblemDetail> handle(EnrolmentException e) {
+        HttpStatus status = e.getStatus() == EnrolmentStatus.ALREADY_ASSIGNED ? HttpStatus.CONFLICT : HttpStatus.NOT_FOUND;
+        ProblemDetail problem = ProblemDetail.forStatusAndDetail(status, e.getMessage());
+        problem.setProperty("reason", e.getStatus());
+        return ResponseEntity.status(status).body(problem);
+    }
 }
@@ -0,0 +1,13 @@
+package com.example.springwebflux.web.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@AllArgsConstructor
+@Data
+public class BookMatchDto {
+    private Long id;
+    private String title;
+    private String author;
+    private Float rank;
+}
@@ -0,0 +1,12 @@
+package com.example.springwebflux.web.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@AllArgsConstructor
+@Data
+public class BookSummaryDto {
+    private Long id;
+    private String title;
+    private String author;
+}
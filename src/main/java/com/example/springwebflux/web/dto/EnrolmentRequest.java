@@ -0,0 +1,13 @@
+package com.example.springwebflux.web.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class EnrolmentRequest {
+    private Long studentId;
+    private Long bookId;
+}
@@ -0,0 +1,15 @@
+package com.example.springwebflux.web.dto;
+
+import com.example.springwebflux.domain.EnrolmentStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class EnrolmentResult {
+    private Long studentId;
+    private Long bookId;
+    private EnrolmentStatus status;
+}
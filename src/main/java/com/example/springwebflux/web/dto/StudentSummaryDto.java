@@ -0,0 +1,12 @@
+package com.example.springwebflux.web.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@AllArgsConstructor
+@Data
+public class StudentSummaryDto {
+    private Long id;
+    private String firstName;
+    private String lastName;
+}
@@ -0,0 +1,149 @@
+package com.example.springwebflux.web.filter;
+
+import com.example.springwebflux.config.AdmissionProperties;
+import com.example.springwebflux.config.DatabaseLatency;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Rejects requests before they reach a handler: with 429 when the client used up its token bucket on the route, and
+ * with 503 when the shared concurrency limit is reached. Both carry {@code Retry-After}; nothing is queued. Runs
+ * after the server observation filter, so rejected requests still show up in {@code http.server.requests}.
+ */
+@Component
+public class AdmissionFilter implements WebFilter, Ordered {
+
+    private static final String ADMISSION_COUNTER = "http.admission";
+
+    private final AdmissionProperties properties;
+    private final List<Rule> rules;
+    private final ConcurrencyLimiter limiter;
+    private final Cache<String, TokenBucket> buckets;
+    private final LongSupplier clock;
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public AdmissionFilter(AdmissionProperties properties, DatabaseLatency databaseLatency, MeterRegistry meterRegistry) {
+        this(properties, databaseLatency, meterRegistry, System::nanoTime);
+    }
+
+    AdmissionFilter(AdmissionProperties properties, DatabaseLatency databaseLatency, MeterRegistry meterRegistry, LongSupplier clock) {
+        this.properties = properties;
+        this.clock = clock;
+        this.meterRegistry = meterRegistry;
+        this.limiter = new ConcurrencyLimiter(properties.concurrency(), databaseLatency, clock);
+        this.buckets = Caffeine.newBuilder()
+                               .maximumSize(properties.maxClients())
+                               .expireAfterAccess(properties.clientIdleTimeout())
+                               .build();
+
+        List<Rule> rules = new ArrayList<>();
+        properties.routes().forEach((name, route) -> rules.add(new Rule(name, PathPatternParser.defaultInstance.parse(route.pattern()), route)));
+        rules.sort(Comparator.comparing(Rule::pattern, PathPattern.SPECIFICITY_COMPARATOR));
+        this.rules = List.copyOf(rules);
+
+        Gauge.builder("http.admission.limit", limiter, ConcurrencyLimiter::limit)
+             .description("Current limit on concurrently admitted requests")
+             .register(meterRegistry);
+        Gauge.builder("http.admission.in.flight", limiter, ConcurrencyLimiter::inFlight)
+             .description("Admitted requests that have not completed yet")
+             .register(meterRegistry);
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 10;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        Rule rule = properties.enabled() ? match(exchange.getRequest()) : null;
+        if (rule == null) {
+            return chain.filter(exchange);
+        }
+
+        AdmissionProperties.Route route = rule.route();
+        if (route.rate() > 0) {
+            long now = clock.getAsLong();
+            long wait = buckets.get(rule.name() + ' ' + client(exchange.getRequest()),
+                                    key -> new TokenBucket(route.rate(), route.burst(), now))
+                               .tryTake(now);
+            if (wait > 0) {
+                return reject(exchange, rule, HttpStatus.TOO_MANY_REQUESTS, "rate_limited", wait);
+            }
+        }
+        if (!route.concurrencyLimited()) {
+            counter(rule, "admitted").increment();
+            return chain.filter(exchange);
+        }
+        if (!limiter.tryAcquire()) {
+            return reject(exchange, rule, HttpStatus.SERVICE_UNAVAILABLE, "shed", properties.concurrency().adjustInterval().toNanos());
+        }
+        counter(rule, "admitted").increment();
+        return chain.filter(exchange)
+                    .doFinally(signal -> limiter.release());
+    }
+
+    private Rule match(ServerHttpRequest request) {
+        for (Rule rule : rules) {
+            if (rule.pattern().matches(request.getPath().pathWithinApplication())
+                    && (rule.route().methods().isEmpty() || rule.route().methods().contains(request.getMethod().name()))) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    private String client(ServerHttpRequest request) {
+        if (StringUtils.hasText(properties.clientHeader())) {
+            String client = request.getHeaders().getFirst(properties.clientHeader());
+            if (client != null) {
+                return client;
+            }
+        }
+        InetSocketAddress address = request.getRemoteAddress();
+        return address != null ? address.getHostString() : "unknown";
+    }
+
+    private Mono<Void> reject(ServerWebExchange exchange, Rule rule, HttpStatus status, String outcome, long retryAfterNanos) {
+        counter(rule, outcome).increment();
+        exchange.getResponse().setStatusCode(status);
+        exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER,
+                                                Long.toString(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(retryAfterNanos + 999_999_999))));
+        return exchange.getResponse().setComplete();
+    }
+
+    private Counter counter(Rule rule, String outcome) {
+        return Counter.builder(ADMISSION_COUNTER)
+                      .description("Requests per route admitted, rejected for their client's rate (rate_limited) or shed at the concurrency limit")
+                      .tag("route", rule.name())
+                      .tag("outcome", outcome)
+                      .register(meterRegistry);
+    }
+
+    private record Rule(String name, PathPattern pattern, AdmissionProperties.Route route) {
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.springwebflux.web.filter;
+
+import com.example.springwebflux.config.AdmissionProperties;
+import com.example.springwebflux.config.DatabaseLatency;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits in-flight requests to a limit that follows the connection wait with additive increase and multiplicative
+ * decrease. The limit is adjusted at most once per {@code adjustInterval}, by the first request after it elapsed.
+ */
+final class ConcurrencyLimiter {
+
+    private final AdmissionProperties.Concurrency properties;
+    private final DatabaseLatency databaseLatency;
+    private final LongSupplier clock;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peak = new AtomicInteger();
+
+    private volatile double limit;
+    private volatile long nextAdjustment;
+
+    ConcurrencyLimiter(AdmissionProperties.Concurrency properties, DatabaseLatency databaseLatency, LongSupplier clock) {
+        this.properties = properties;
+        this.databaseLatency = databaseLatency;
+        this.clock = clock;
+        this.limit = properties.initialLimit();
+        this.nextAdjustment = clock.getAsLong() + properties.adjustInterval().toNanos();
+    }
+
+    boolean tryAcquire() {
+        adjust();
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= (int) limit) {
+                peak.accumulateAndGet(current, Math::max);
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        peak.accumulateAndGet(current + 1, Math::max);
+        return true;
+    }
+
+    void release() {
+        inFlight.decrementAndGet();
+    }
+
+    int limit() {
+        return (int) limit;
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    private void adjust() {
+        long now = clock.getAsLong();
+        if (now < nextAdjustment) {
+            return;
+        }
+        synchronized (this) {
+            if (now < nextAdjustment) {
+                return;
+            }
+            nextAdjustment = now + properties.adjustInterval().toNanos();
+            Duration wait = databaseLatency.drain();
+            int reached = peak.getAndSet(inFlight.get());
+            if (wait != null && wait.compareTo(properties.latencyThreshold()) > 0) {
+                limit = Math.max(properties.minLimit(), limit * properties.backoffRatio());
+            } else if (reached >= (int) limit) {
+                limit = Math.min(properties.maxLimit(), limit + 1);
+            }
+        }
+    }
+}
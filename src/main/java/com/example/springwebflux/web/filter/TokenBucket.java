@@ -0,0 +1,32 @@
+package com.example.springwebflux.web.filter;
+
+/**
+ * Holds up to {@code burst} tokens and refills {@code rate} per second; every request takes one.
+ */
+final class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long refilledAt;
+
+    TokenBucket(double rate, int burst, long now) {
+        this.capacity = Math.max(burst, 1);
+        this.tokensPerNano = rate / 1_000_000_000d;
+        this.tokens = capacity;
+        this.refilledAt = now;
+    }
+
+    /**
+     * Takes a token and returns zero, or, when there is none, the nanoseconds until there will be one.
+     */
+    synchronized long tryTake(long now) {
+        tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+        refilledAt = now;
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / tokensPerNano);
+    }
+}
@@ -0,0 +1,3 @@
+-- Backs lookups and deletes by book; the unique constraint only covers queries leading with student_id.
+-- Built concurrently so writes to student_book are not blocked while it is created.
+create index concurrently if not exists student_book_book_id_idx on student_book (book_id);
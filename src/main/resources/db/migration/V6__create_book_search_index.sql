@@ -0,0 +1,2 @@
+-- Trigram index over title and author for BookRepository.search; the expression must match the query exactly.
+create index concurrently if not exists book_search_trgm_idx on book using gin ((title || ' ' || author) gin_trgm_ops);
@@ -0,0 +1,7 @@
+-- Deleting a student or book now removes its student_book rows in the same statement.
+-- The constraints are added as not valid so this migration only briefly locks the tables; V8 validates them.
+alter table student_book
+    drop constraint student_book_student_id_fkey,
+    add constraint student_book_student_id_fkey foreign key (student_id) references student (id) on delete cascade not valid,
+    drop constraint student_book_book_id_fkey,
+    add constraint student_book_book_id_fkey foreign key (book_id) references book (id) on delete cascade not valid;
@@ -0,0 +1,2 @@
+alter table student_book validate constraint student_book_student_id_fkey;
+alter table student_book validate constraint student_book_book_id_fkey;
@@ -0,0 +1,30 @@
+package com.example.springwebflux.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryMetricsListenerTest {
+
+    @Test
+    public void name_whenStatementNamesItself_usesComment() {
+        assertThat(QueryMetricsListener.name("""
+                                             /* StudentBookRepository.assignAll */
+                                             with pair as (select 1) select * from pair
+                                             """))
+                .isEqualTo("StudentBookRepository.assignAll");
+    }
+
+    @Test
+    public void name_whenGeneratedBySpringData_usesVerbAndTable() {
+        assertThat(QueryMetricsListener.name("SELECT book.* FROM book WHERE book.id = $1 LIMIT 2")).isEqualTo("select book");
+        assertThat(QueryMetricsListener.name("INSERT INTO student (first_name, last_name) VALUES ($1, $2)")).isEqualTo("insert student");
+        assertThat(QueryMetricsListener.name("UPDATE book SET title = $1 WHERE book.id = $2")).isEqualTo("update book");
+        assertThat(QueryMetricsListener.name("DELETE FROM student_book WHERE student_book.id = $1")).isEqualTo("delete student_book");
+    }
+
+    @Test
+    public void name_whenUnrecognized_isOther() {
+        assertThat(QueryMetricsListener.name("with x as (select 1) select * from x")).isEqualTo("other");
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.springwebflux.config;
+
+import com.example.springwebflux.repository.DatabaseRoute;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.reactive.TransactionContextManager;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+
+@ExtendWith(MockitoExtension.class)
+class RoutingConnectionFactoryTest {
+
+    @Mock
+    private ConnectionFactory primary;
+    @Mock
+    private ConnectionFactory replica;
+    @Mock
+    private Connection primaryConnection;
+    @Mock
+    private Connection replicaConnection;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private RoutingConnectionFactory connectionFactory;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        lenient().doReturn(Mono.just(primaryConnection)).when(primary).create();
+        lenient().doReturn(Mono.just(replicaConnection)).when(replica).create();
+        connectionFactory = new RoutingConnectionFactory(primary,
+                                                         Map.of("replica-0", replica),
+                                                         new ReplicaProperties(List.of("r2dbc:postgresql://replica/db"),
+                                                                               Duration.ofSeconds(10),
+                                                                               Duration.ofSeconds(2)),
+                                                         "select 1",
+                                                         meterRegistry);
+    }
+
+    @Test
+    public void create_whenNoRouteSelected_usesPrimary() {
+        StepVerifier.create(connectionFactory.create())
+                    .expectNext(primaryConnection)
+                    .verifyComplete();
+    }
+
+    @Test
+    public void create_whenReplicaSelected_usesReplica() {
+        StepVerifier.create(connectionFactory.create()
+                                             .contextWrite(DatabaseRoute.REPLICA.context()))
+                    .expectNext(replicaConnection)
+                    .verifyComplete();
+
+        assertThat(meterRegistry.get("r2dbc.route.connections").tag("route", "replica-0").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void create_whenReplicaSelectedInTransaction_usesPrimary() {
+        StepVerifier.create(connectionFactory.create()
+                                             .contextWrite(DatabaseRoute.REPLICA.context())
+                                             .contextWrite(TransactionContextManager.createTransactionContext()))
+                    .expectNext(primaryConnection)
+                    .verifyComplete();
+    }
+
+    @Test
+    public void create_whenReplicaFails_fallsBackToPrimaryAndSkipsReplica() {
+        doReturn(Mono.error(new IllegalStateException("connection refused"))).when(replica).create();
+
+        StepVerifier.create(connectionFactory.create()
+                                             .contextWrite(DatabaseRoute.REPLICA.context()))
+                    .expectNext(primaryConnection)
+                    .verifyComplete();
+        StepVerifier.create(connectionFactory.create()
+                                             .contextWrite(DatabaseRoute.REPLICA.context()))
+                    .expectNext(primaryConnection)
+                    .verifyComplete();
+
+        assertThat(meterRegistry.get("r2dbc.route.healthy").tag("route", "replica-0").gauge().value()).isZero();
+        assertThat(meterRegistry.get("r2dbc.route.connections").tag("outcome", "failover").counter().count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.springwebflux.service;
+
+import com.example.springwebflux.config.BookLoaderProperties;
+import com.example.springwebflux.domain.Book;
+import com.example.springwebflux.repository.BookRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.lang.reflect.Field;
+import java.time.Duration;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookCacheTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    private BookCache bookCache;
+
+    private Book book;
+
+    @BeforeEach
+    public void setup() throws NoSuchFieldException, IllegalAccessException {
+        bookCache = new BookCache(Caffeine.newBuilder().buildAsync(),
+                                  new BookLoader(bookRepository, new BookLoaderProperties(Duration.ZERO, 500), new SimpleMeterRegistry()));
+        book = new Book("Clean Code", "Robert C. Martin");
+
+        Field field = book.getClass().getDeclaredField("id");
+        field.setAccessible(true);
+        field.set(book, 1L);
+        field.setAccessible(false);
+    }
+
+    @Test
+    public void get_whenConcurrentMisses_queriesOnce() {
+        Sinks.One<Book> pending = Sinks.one();
+        when(bookRepository.findAllByIds(new Long[]{1L})).thenReturn(pending.asMono().flux());
+
+        Mono<Book> first = bookCache.get(1L).cache();
+        Mono<Book> second = bookCache.get(1L).cache();
+        first.subscribe();
+        second.subscribe();
+        pending.tryEmitValue(book);
+
+        StepVerifier.create(first).expectNext(book).verifyComplete();
+        StepVerifier.create(second).expectNext(book).verifyComplete();
+        StepVerifier.create(bookCache.get(1L)).expectNext(book).verifyComplete();
+        verify(bookRepository, times(1)).findAllByIds(new Long[]{1L});
+    }
+
+    @Test
+    public void get_whenInvalidated_queriesAgain() {
+        when(bookRepository.findAllByIds(new Long[]{1L})).thenReturn(Flux.just(book));
+
+        bookCache.get(1L).block();
+        bookCache.invalidate(1L);
+        bookCache.get(1L).block();
+
+        verify(bookRepository, times(2)).findAllByIds(new Long[]{1L});
+    }
+
+    @Test
+    public void get_whenMissing_completesEmpty() {
+        when(bookRepository.findAllByIds(new Long[]{1L})).thenReturn(Flux.empty());
+
+        StepVerifier.create(bookCache.get(1L))
+                    .verifyComplete();
+    }
+}
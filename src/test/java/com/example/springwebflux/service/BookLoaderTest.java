@@ -0,0 +1,80 @@
+package com.example.springwebflux.service;
+
+import com.example.springwebflux.config.BookLoaderProperties;
+import com.example.springwebflux.domain.Book;
+import com.example.springwebflux.repository.BookRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+
+import java.lang.reflect.Field;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookLoaderTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Test
+    public void loadAll_whenBatchFills_queriesDistinctIdsOnce() throws Exception {
+        BookLoader bookLoader = new BookLoader(bookRepository, new BookLoaderProperties(Duration.ofHours(1), 3), new SimpleMeterRegistry());
+        Book first = book(1L);
+        Book third = book(3L);
+        when(bookRepository.findAllByIds(new Long[]{1L, 2L, 3L})).thenReturn(Flux.just(first, third));
+
+        CompletableFuture<Book> one = bookLoader.load(1L);
+        CompletableFuture<Map<Long, Book>> oneAndTwo = bookLoader.loadAll(List.of(2L, 1L));
+        assertThat(one).isNotDone();
+        CompletableFuture<Book> three = bookLoader.load(3L);
+
+        assertThat(one).isCompletedWithValue(first);
+        assertThat(oneAndTwo.get()).containsOnly(Map.entry(1L, first));
+        assertThat(three).isCompletedWithValue(third);
+        verify(bookRepository, times(1)).findAllByIds(any());
+    }
+
+    @Test
+    public void load_whenWindowCloses_queriesConcurrentCallersOnce() throws Exception {
+        BookLoader bookLoader = new BookLoader(bookRepository, new BookLoaderProperties(Duration.ofMillis(10), 500), new SimpleMeterRegistry());
+        Book first = book(1L);
+        Book second = book(2L);
+        when(bookRepository.findAllByIds(new Long[]{1L, 2L})).thenReturn(Flux.just(first, second));
+
+        CompletableFuture<Book> one = bookLoader.load(1L);
+        CompletableFuture<Book> two = bookLoader.load(2L);
+
+        assertThat(one.get()).isEqualTo(first);
+        assertThat(two.get()).isEqualTo(second);
+        verify(bookRepository, times(1)).findAllByIds(any());
+    }
+
+    @Test
+    public void load_whenQueryFails_failsEveryCaller() {
+        BookLoader bookLoader = new BookLoader(bookRepository, new BookLoaderProperties(Duration.ZERO, 500), new SimpleMeterRegistry());
+        when(bookRepository.findAllByIds(new Long[]{1L})).thenReturn(Flux.error(new IllegalStateException("connection lost")));
+
+        assertThat(bookLoader.load(1L)).isCompletedExceptionally();
+    }
+
+    private static Book book(Long id) throws NoSuchFieldException, IllegalAccessException {
+        Book book = new Book("Clean Code", "Robert C. Martin");
+        Field field = book.getClass().getDeclaredField("id");
+        field.setAccessible(true);
+        field.set(book, id);
+        field.setAccessible(false);
+        return book;
+    }
+}
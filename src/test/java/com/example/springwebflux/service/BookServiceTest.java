@@ -0,0 +1,166 @@
+package com.example.springwebflux.service;
+
+import com.example.springwebflux.config.BookLoaderProperties;
+import com.example.springwebflux.config.BulkProperties;
+import com.example.springwebflux.config.PaginationProperties;
+import com.example.springwebflux.domain.Book;
+import com.example.springwebflux.domain.BookMatch;
+import com.example.springwebflux.domain.BookSummary;
+import com.example.springwebflux.domain.ChangeEvent;
+import com.example.springwebflux.domain.StudentSummary;
+import com.example.springwebflux.repository.BookRepository;
+import com.example.springwebflux.repository.StudentRepository;
+import com.example.springwebflux.service.mapper.Mapper;
+import com.example.springwebflux.web.dto.BookDto;
+import com.example.springwebflux.web.dto.BookMatchDto;
+import com.example.springwebflux.web.dto.BookSummaryDto;
+import com.example.springwebflux.web.dto.StudentSummaryDto;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookServiceTest {
+
+    @Mock
+    private BookRepository bookRepository;
+    @Mock
+    private StudentRepository studentRepository;
+    @Mock
+    private Mapper<Book, BookDto> bookDtoMapper;
+    @Mock
+    private Mapper<BookMatch, BookMatchDto> bookMatchDtoMapper;
+    @Mock
+    private Mapper<BookSummary, BookSummaryDto> bookSummaryDtoMapper;
+    @Mock
+    private Mapper<StudentSummary, StudentSummaryDto> studentSummaryDtoMapper;
+    @Mock
+    private TransactionalOperator transactionalOperator;
+    @Mock
+    private StudentAggregateCache studentAggregateCache;
+    @Mock
+    private ChangeFeed changeFeed;
+
+    private BookService bookService;
+
+    private StudentSummary first;
+    private StudentSummary second;
+
+    @BeforeEach
+    public void setup() {
+        bookService = new BookService(bookRepository,
+                                      studentRepository,
+                                      bookDtoMapper,
+                                      bookMatchDtoMapper,
+                                      bookSummaryDtoMapper,
+                                      studentSummaryDtoMapper,
+                                      new PaginationProperties(1000, 2),
+                                      new BulkProperties(2),
+                                      transactionalOperator,
+                                      new BookCache(Caffeine.newBuilder().buildAsync(),
+                                                    new BookLoader(bookRepository,
+                                                                   new BookLoaderProperties(Duration.ZERO, 500),
+                                                                   new SimpleMeterRegistry())),
+                                      studentAggregateCache,
+                                      changeFeed);
+
+        first = new StudentSummary(1L, "John", "Davis");
+        second = new StudentSummary(2L, "Jane", "Doe");
+    }
+
+    @Test
+    public void getStudents_whenPageIsFull_readsNextPage() {
+        StudentSummary third = new StudentSummary(3L, "Jack", "Black");
+        when(studentRepository.findPageByBookId(10L, 0L, 2)).thenReturn(Flux.just(first, second));
+        when(studentRepository.findPageByBookId(10L, 2L, 2)).thenReturn(Flux.just(third));
+        when(studentSummaryDtoMapper.map(first)).thenReturn(new StudentSummaryDto(1L, "John", "Davis"));
+        when(studentSummaryDtoMapper.map(second)).thenReturn(new StudentSummaryDto(2L, "Jane", "Doe"));
+        when(studentSummaryDtoMapper.map(third)).thenReturn(new StudentSummaryDto(3L, "Jack", "Black"));
+
+        StepVerifier.create(bookService.getStudents(10L, null))
+                    .expectNext(new StudentSummaryDto(1L, "John", "Davis"),
+                                new StudentSummaryDto(2L, "Jane", "Doe"),
+                                new StudentSummaryDto(3L, "Jack", "Black"))
+                    .verifyComplete();
+    }
+
+    @Test
+    public void getStudentsPage_whenInvoked_readsSinglePageAfterCursor() {
+        when(studentRepository.findPageByBookId(10L, 1L, 5)).thenReturn(Flux.just(second));
+        when(studentSummaryDtoMapper.map(second)).thenReturn(new StudentSummaryDto(2L, "Jane", "Doe"));
+
+        StepVerifier.create(bookService.getStudentsPage(10L, 1L, 5))
+                    .expectNext(new StudentSummaryDto(2L, "Jane", "Doe"))
+                    .verifyComplete();
+
+        verify(studentRepository).findPageByBookId(10L, 1L, 5);
+        verifyNoMoreInteractions(studentRepository);
+    }
+
+    @Test
+    public void getSummaryPage_whenInvoked_mapsProjectionRows() {
+        BookSummary summary = new BookSummary(10L, "Clean Code", "Robert C. Martin");
+        when(bookRepository.findSummaryPage(0L, 5)).thenReturn(Flux.just(summary));
+        when(bookSummaryDtoMapper.map(summary)).thenReturn(new BookSummaryDto(10L, "Clean Code", "Robert C. Martin"));
+
+        StepVerifier.create(bookService.getSummaryPage(null, 5))
+                    .expectNext(new BookSummaryDto(10L, "Clean Code", "Robert C. Martin"))
+                    .verifyComplete();
+
+        verify(bookRepository).findSummaryPage(0L, 5);
+        verifyNoMoreInteractions(bookRepository);
+    }
+
+    @Test
+    public void search_whenNoCursor_startsAboveBestRank() {
+        BookMatch match = new BookMatch(10L, "Clean Code", "Robert C. Martin", 0.8f);
+        when(bookRepository.search("clean", Float.MAX_VALUE, 0L, 20)).thenReturn(Flux.just(match));
+        when(bookMatchDtoMapper.map(match)).thenReturn(new BookMatchDto(10L, "Clean Code", "Robert C. Martin", 0.8f));
+
+        StepVerifier.create(bookService.search("clean", null, null, 20))
+                    .expectNext(new BookMatchDto(10L, "Clean Code", "Robert C. Martin", 0.8f))
+                    .verifyComplete();
+    }
+
+    @Test
+    public void search_whenCursorGiven_continuesAfterIt() {
+        when(bookRepository.search("clean", 0.8f, 10L, 20)).thenReturn(Flux.empty());
+
+        StepVerifier.create(bookService.search("clean", 0.8f, 10L, 20))
+                    .verifyComplete();
+    }
+
+    @Test
+    public void removeAll_whenInvoked_deletesInChunksAndPublishesExistingIds() {
+        when(transactionalOperator.transactional(any(Flux.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(bookRepository.removeAll(List.of(1L, 2L))).thenReturn(Flux.just(1L));
+        when(bookRepository.removeAll(List.of(3L))).thenReturn(Flux.just(3L));
+        when(changeFeed.publish(anyList())).thenReturn(Mono.empty());
+
+        StepVerifier.create(bookService.removeAll(Flux.just(1L, 2L, 3L)))
+                    .expectNext(1L, 3L)
+                    .verifyComplete();
+
+        verify(changeFeed).publish(List.of(ChangeEvent.deleted(ChangeEvent.Entity.BOOK, 1L)));
+        verify(changeFeed).publish(List.of(ChangeEvent.deleted(ChangeEvent.Entity.BOOK, 3L)));
+        verify(studentAggregateCache).invalidateBooks(List.of(1L));
+        verify(studentAggregateCache).invalidateBooks(List.of(3L));
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.springwebflux.service;
+
+import com.example.springwebflux.config.EnrolmentBufferProperties;
+import com.example.springwebflux.domain.ChangeEvent;
+import com.example.springwebflux.domain.EnrolmentStatus;
+import com.example.springwebflux.domain.StudentBook;
+import com.example.springwebflux.repository.StudentBookRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class EnrolmentBufferTest {
+
+    @Mock
+    private StudentBookRepository studentBookRepository;
+    @Mock
+    private TransactionalOperator transactionalOperator;
+    @Mock
+    private StudentAggregateCache studentAggregateCache;
+    @Mock
+    private ChangeFeed changeFeed;
+
+    @BeforeEach
+    public void setup() {
+        lenient().when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        lenient().when(changeFeed.publish(anyList())).thenReturn(Mono.empty());
+    }
+
+    @Test
+    public void flush_whenAddThenRemoveOfSamePair_writesOnlyTheRemove() {
+        EnrolmentBuffer buffer = buffer(100);
+        when(studentBookRepository.assignAll(List.of())).thenReturn(Flux.empty());
+        when(studentBookRepository.unassignAll(anyList())).thenReturn(Flux.just(EnrolmentStatus.UNASSIGNED));
+
+        CompletableFuture<Void> added = buffer.add(1L, 10L, true).toFuture();
+        CompletableFuture<Void> removed = buffer.remove(1L, 10L, true).toFuture();
+        assertThat(added).isNotDone();
+
+        buffer.flush().block();
+
+        assertThat(added).isCompleted();
+        assertThat(removed).isCompleted();
+        ArgumentCaptor<List<StudentBook>> pairs = ArgumentCaptor.forClass(List.class);
+        verify(studentBookRepository).unassignAll(pairs.capture());
+        assertThat(pairs.getValue()).singleElement()
+                                    .satisfies(pair -> assertThat(pair.getStudentId()).isEqualTo(1L))
+                                    .satisfies(pair -> assertThat(pair.getBookId()).isEqualTo(10L));
+        verify(changeFeed).publish(List.of(ChangeEvent.unenrolled(1L, 10L)));
+        verify(studentAggregateCache).invalidateStudent(1L);
+    }
+
+    @Test
+    public void flush_whenStudentMissing_failsAcknowledgedChange() {
+        EnrolmentBuffer buffer = buffer(100);
+        when(studentBookRepository.assignAll(anyList())).thenReturn(Flux.just(EnrolmentStatus.STUDENT_NOT_FOUND));
+        when(studentBookRepository.unassignAll(List.of())).thenReturn(Flux.empty());
+
+        CompletableFuture<Void> added = buffer.add(1L, 10L, true).toFuture();
+        buffer.flush().block();
+
+        assertThat(added).failsWithin(Duration.ZERO)
+                         .withThrowableOfType(Exception.class)
+                         .havingCause()
+                         .isInstanceOf(EnrolmentException.class);
+        verify(changeFeed).publish(List.of());
+    }
+
+    @Test
+    public void add_whenFull_waitsForNextFlush() {
+        EnrolmentBuffer buffer = buffer(1);
+        when(studentBookRepository.assignAll(anyList())).thenReturn(Flux.just(EnrolmentStatus.ASSIGNED));
+        when(studentBookRepository.unassignAll(List.of())).thenReturn(Flux.empty());
+
+        CompletableFuture<Void> first = buffer.add(1L, 10L, false).toFuture();
+        CompletableFuture<Void> second = buffer.add(2L, 10L, false).toFuture();
+        assertThat(first).isCompleted();
+        assertThat(second).isNotDone();
+
+        buffer.flush().block();
+
+        assertThat(second).isCompleted();
+        verify(changeFeed).publish(List.of(ChangeEvent.enrolled(1L, 10L)));
+        verify(changeFeed).publish(List.of(ChangeEvent.enrolled(2L, 10L)));
+    }
+
+    private EnrolmentBuffer buffer(int capacity) {
+        return new EnrolmentBuffer(studentBookRepository,
+                                   transactionalOperator,
+                                   studentAggregateCache,
+                                   changeFeed,
+                                   new EnrolmentBufferProperties(true, capacity, 500, Duration.ofHours(1), Duration.ofSeconds(10)),
+                                   new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.springwebflux.service;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeysetTest {
+
+    @Test
+    public void stream_whenManyPages_queriesEachAfterTheLastId() {
+        List<Long> cursors = new ArrayList<>();
+
+        StepVerifier.create(Keyset.stream(null, 2, (after, limit) -> {
+                        cursors.add(after);
+                        return Flux.range(after.intValue() + 1, (int) Math.min(limit, 5 - after)).map(Long::valueOf);
+                    }, id -> id))
+                    .expectNext(1L, 2L, 3L, 4L, 5L)
+                    .verifyComplete();
+        assertThat(cursors).containsExactly(0L, 2L, 4L);
+    }
+
+    @Test
+    public void stream_whenTenThousandPages_completes() {
+        StepVerifier.create(Keyset.stream(null, 1, (after, limit) -> after < 10_000 ? Flux.just(after + 1) : Flux.empty(), id -> id)
+                                  .count())
+                    .expectNext(10_000L)
+                    .verifyComplete();
+    }
+
+    @Test
+    public void streamGrouped_whenPageHasSeveralRowsPerId_countsIds() {
+        List<Long> cursors = new ArrayList<>();
+        List<Long> rows = List.of(1L, 1L, 2L, 3L, 3L, 3L);
+
+        StepVerifier.create(Keyset.streamGrouped(null, 2, (after, limit) -> {
+                        cursors.add(after);
+                        return Flux.fromIterable(rows).filter(id -> id > after && id <= after + limit);
+                    }, id -> id))
+                    .expectNextSequence(rows)
+                    .verifyComplete();
+        assertThat(cursors).containsExactly(0L, 2L);
+    }
+}
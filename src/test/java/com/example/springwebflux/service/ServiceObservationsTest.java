@@ -0,0 +1,48 @@
+package com.example.springwebflux.service;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ServiceObservationsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ServiceObservations observations;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        ObservationRegistry observationRegistry = ObservationRegistry.create();
+        observationRegistry.observationConfig().observationHandler(new DefaultMeterObservationHandler(meterRegistry));
+        observations = new ServiceObservations(observationRegistry);
+    }
+
+    @Test
+    public void observe_timesEverySubscriptionWithOutcome() {
+        Flux<Integer> flux = observations.observe(Flux.just(1, 2), "BookService", "getAll");
+        StepVerifier.create(flux).expectNext(1, 2).verifyComplete();
+        StepVerifier.create(flux.take(1)).expectNext(1).verifyComplete();
+        StepVerifier.create(observations.observe(Mono.error(new IllegalStateException()), "BookService", "getById"))
+                    .verifyError(IllegalStateException.class);
+
+        assertThat(timer("getAll", "success").count()).isEqualTo(1);
+        assertThat(timer("getAll", "cancelled").count()).isEqualTo(1);
+        assertThat(timer("getById", "error").count()).isEqualTo(1);
+    }
+
+    private Timer timer(String method, String outcome) {
+        return meterRegistry.get("service.method")
+                            .tag("class", "BookService")
+                            .tag("method", method)
+                            .tag("outcome", outcome)
+                            .timer();
+    }
+}
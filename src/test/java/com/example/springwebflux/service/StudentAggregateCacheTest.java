@@ -0,0 +1,87 @@
+package com.example.springwebflux.service;
+
+import com.example.springwebflux.config.StudentCacheProperties;
+import com.example.springwebflux.web.dto.BookDto;
+import com.example.springwebflux.web.dto.StudentDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StudentAggregateCacheTest {
+
+    private StudentAggregateCache cache;
+
+    private AtomicInteger loads;
+
+    private StudentDto student;
+
+    @BeforeEach
+    public void setup() {
+        cache = new StudentAggregateCache(new StudentCacheProperties(100, Duration.ofMinutes(1)),
+                                          Jackson2ObjectMapperBuilder.json().build(),
+                                          new SimpleMeterRegistry());
+        loads = new AtomicInteger();
+
+        BookDto book = new BookDto(10L, "Clean Code", "Robert C. Martin", LocalDateTime.now(), LocalDateTime.now());
+        student = new StudentDto(1L, "John", "Davis", List.of(book));
+    }
+
+    private Mono<StudentDto> load(Long id) {
+        loads.incrementAndGet();
+        return Mono.just(student);
+    }
+
+    @Test
+    public void get_whenCached_servesBytesWithoutLoading() {
+        cache.get(1L, this::load).block();
+
+        StepVerifier.create(cache.get(1L, this::load))
+                    .assertNext(cached -> assertThat(new String(cached.json())).contains("\"firstName\":\"John\"", "\"id\":10"))
+                    .verifyComplete();
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    public void get_whenAggregateChanges_changesETag() {
+        String etag = cache.get(1L, this::load).block().etag();
+
+        cache.invalidateStudent(1L);
+        String unchanged = cache.get(1L, this::load).block().etag();
+        student.setLastName("White");
+        cache.invalidateStudent(1L);
+        String changed = cache.get(1L, this::load).block().etag();
+
+        assertThat(unchanged).isEqualTo(etag);
+        assertThat(changed).isNotEqualTo(etag);
+    }
+
+    @Test
+    public void invalidateBook_whenReferenced_evictsDependentStudents() {
+        cache.get(1L, this::load).block();
+
+        cache.invalidateBook(10L);
+        cache.get(1L, this::load).block();
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    public void invalidateBook_whenNotReferenced_keepsStudents() {
+        cache.get(1L, this::load).block();
+
+        cache.invalidateBook(11L);
+        cache.get(1L, this::load).block();
+
+        assertThat(loads).hasValue(1);
+    }
+}
@@ -1,31 +1,52 @@
 package com.example.springwebflux.service;
 
+import com.example.springwebflux.config.BookLoaderProperties;
+import com.example.springwebflux.config.BulkProperties;
+import com.example.springwebflux.config.PaginationProperties;
+import com.example.springwebflux.config.StudentBooksProperties;
 import com.example.springwebflux.domain.Book;
+import com.example.springwebflux.domain.ChangeEvent;
+import com.example.springwebflux.domain.Enrolment;
+import com.example.springwebflux.domain.EnrolmentStatus;
 import com.example.springwebflux.domain.Student;
+import com.example.springwebflux.domain.StudentBook;
+import com.example.springwebflux.domain.StudentBookRow;
+import com.example.springwebflux.domain.StudentSummary;
 import com.example.springwebflux.repository.BookRepository;
 import com.example.springwebflux.repository.StudentBookRepository;
 import com.example.springwebflux.repository.StudentRepository;
 import com.example.springwebflux.service.mapper.Mapper;
 import com.example.springwebflux.web.dto.BookDto;
+import com.example.springwebflux.web.dto.EnrolmentRequest;
+import com.example.springwebflux.web.dto.EnrolmentResult;
 import com.example.springwebflux.web.dto.StudentDto;
+import com.example.springwebflux.web.dto.StudentRequest;
+import com.example.springwebflux.web.dto.StudentSummaryDto;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.lang.reflect.Field;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -39,6 +60,14 @@ class StudentServiceTest {
     private StudentBookRepository studentBookRepository;
     @Mock
     private Mapper<Student, StudentDto> studentDtoMapper;
+    @Mock
+    private Mapper<StudentSummary, StudentSummaryDto> studentSummaryDtoMapper;
+    @Mock
+    private TransactionalOperator transactionalOperator;
+    @Mock
+    private StudentAggregateCache studentAggregateCache;
+    @Mock
+    private ChangeFeed changeFeed;
 
     private StudentService studentService;
 
@@ -50,9 +79,21 @@ class StudentServiceTest {
     @BeforeEach
     public void setup() throws NoSuchFieldException, IllegalAccessException {
         studentService = new StudentService(studentRepository,
-                                            bookRepository,
                                             studentBookRepository,
-                                            studentDtoMapper);
+                                            studentDtoMapper,
+                                            studentSummaryDtoMapper,
+                                            new StudentBooksLoader(studentBookRepository,
+                                                                   new BookCache(Caffeine.newBuilder().buildAsync(),
+                                                                                 new BookLoader(bookRepository,
+                                                                                                new BookLoaderProperties(Duration.ZERO, 500),
+                                                                                                new SimpleMeterRegistry())),
+                                                                   new StudentBooksProperties(500),
+                                                                   new SimpleMeterRegistry()),
+                                            new PaginationProperties(1000, 500),
+                                            new BulkProperties(2),
+                                            transactionalOperator,
+                                            studentAggregateCache,
+                                            changeFeed);
 
         student = new Student("John", "Davis");
         book = new Book("Clean Code", "Robert C. Martin");
@@ -72,69 +113,183 @@ class StudentServiceTest {
     }
 
     @Test
-    public void getAll_whenInvoked_expectedResult() {
-        lenient().when(studentRepository.findAll()).thenReturn(Flux.just(student));
-        lenient().when(studentBookRepository.findBookIdsByStudentId(1L)).thenReturn(Flux.just(2L));
-        lenient().when(bookRepository.findById(2L)).thenReturn(Mono.just(book));
-        lenient().when(studentDtoMapper.mapList(anyList())).thenReturn(List.of(studentDto));
-
-        StepVerifier.create(studentService.getAll())
-                    .assertNext(students -> {
-                        assertThat(students).hasSize(1)
-                                            .containsOnly(studentDto);
-                    })
-                .verifyComplete();
+    public void getPage_whenInvoked_expectedResult() {
+        lenient().when(studentRepository.findPage(0L, 500)).thenReturn(Flux.just(student));
+        lenient().when(studentBookRepository.findAllByStudentIdIn(List.of(1L))).thenReturn(Flux.just(new StudentBook(1L, 10L)));
+        lenient().when(bookRepository.findAllByIds(new Long[]{10L})).thenReturn(Flux.just(book));
+        lenient().when(studentDtoMapper.map(any())).thenReturn(studentDto);
+
+        StepVerifier.create(studentService.getPage(null, 500))
+                    .expectNext(studentDto)
+                    .verifyComplete();
     }
 
     @Test
-    public void getAll_whenNoBooks_expectedResult() {
-        lenient().when(studentRepository.findAll()).thenReturn(Flux.just(student));
-        lenient().when(studentBookRepository.findBookIdsByStudentId(1L)).thenReturn(Flux.empty());
-        lenient().when(studentDtoMapper.mapList(anyList())).thenReturn(List.of(studentDto));
-
-        StepVerifier.create(studentService.getAll())
-                    .assertNext(students -> {
-                        assertThat(students).hasSize(1)
-                                            .containsOnly(studentDto);
-                    })
-                .verifyComplete();
+    public void getPage_whenNoBooks_expectedResult() {
+        lenient().when(studentRepository.findPage(0L, 500)).thenReturn(Flux.just(student));
+        lenient().when(studentBookRepository.findAllByStudentIdIn(List.of(1L))).thenReturn(Flux.empty());
+        lenient().when(studentDtoMapper.map(any())).thenReturn(studentDto);
+
+        StepVerifier.create(studentService.getPage(null, 500))
+                    .expectNext(studentDto)
+                    .verifyComplete();
 
     }
 
     @Test
-    public void getAll_whenInvoked_enrichesWithBooks() {
-        lenient().when(studentRepository.findAll()).thenReturn(Flux.just(student));
-        lenient().when(studentBookRepository.findBookIdsByStudentId(1L)).thenReturn(Flux.just(2L));
-        lenient().when(bookRepository.findById(2L)).thenReturn(Mono.just(book));
-        lenient().when(studentDtoMapper.mapList(anyList())).thenReturn(List.of(studentDto));
-        ArgumentCaptor<List<Student>> studentCaptor = ArgumentCaptor.forClass(List.class);
+    public void getPage_whenInvoked_enrichesWithBooks() {
+        lenient().when(studentRepository.findPage(0L, 500)).thenReturn(Flux.just(student));
+        lenient().when(studentBookRepository.findAllByStudentIdIn(List.of(1L))).thenReturn(Flux.just(new StudentBook(1L, 10L)));
+        lenient().when(bookRepository.findAllByIds(new Long[]{10L})).thenReturn(Flux.just(book));
+        lenient().when(studentDtoMapper.map(any())).thenReturn(studentDto);
+        ArgumentCaptor<Student> studentCaptor = ArgumentCaptor.forClass(Student.class);
 
-        studentService.getAll().block();
+        studentService.getPage(null, 500).blockLast();
 
-        verify(studentDtoMapper).mapList(studentCaptor.capture());
+        verify(studentDtoMapper).map(studentCaptor.capture());
 
-        assertThat(studentCaptor.getValue()).hasSize(1)
+        assertThat(studentCaptor.getAllValues()).hasSize(1)
                 .extracting(Student::getBooks)
                 .allSatisfy(books -> assertThat(books).hasSize(1).containsExactly(book));
     }
 
+    @Test
+    public void getPage_whenManyStudents_loadsBooksInOneBatch() throws NoSuchFieldException, IllegalAccessException {
+        Student other = new Student("Jane", "Doe");
+        Field field = other.getClass().getDeclaredField("id");
+        field.setAccessible(true);
+        field.set(other, 2L);
+        field.setAccessible(false);
+
+        when(studentRepository.findPage(0L, 500)).thenReturn(Flux.just(student, other));
+        when(studentBookRepository.findAllByStudentIdIn(List.of(1L, 2L)))
+                .thenReturn(Flux.just(new StudentBook(1L, 10L), new StudentBook(2L, 10L)));
+        when(bookRepository.findAllByIds(new Long[]{10L})).thenReturn(Flux.just(book));
+        when(studentDtoMapper.map(any())).thenReturn(studentDto);
+        ArgumentCaptor<Student> studentCaptor = ArgumentCaptor.forClass(Student.class);
+
+        studentService.getPage(null, 500).blockLast();
+
+        verify(studentBookRepository).findAllByStudentIdIn(List.of(1L, 2L));
+        verify(bookRepository).findAllByIds(new Long[]{10L});
+        verify(studentDtoMapper, times(2)).map(studentCaptor.capture());
+
+        assertThat(studentCaptor.getAllValues()).hasSize(2)
+                .extracting(Student::getBooks)
+                .allSatisfy(books -> assertThat(books).containsExactly(book));
+    }
+
+    @Test
+    public void getAllRows_whenInvoked_passesJoinRowsThrough() {
+        StudentBookRow first = new StudentBookRow(1L, "John", "Davis", 10L, "Clean Code", "Robert C. Martin", null, null);
+        StudentBookRow second = new StudentBookRow(1L, "John", "Davis", 11L, "Refactoring", "Martin Fowler", null, null);
+        when(studentRepository.findRowPage(0L, 500)).thenReturn(Flux.just(first, second));
+
+        StepVerifier.create(studentService.getAllRows(null))
+                    .expectNext(first, second)
+                    .verifyComplete();
+        verifyNoInteractions(studentBookRepository, bookRepository);
+    }
+
+    @Test
+    public void getSummaries_whenInvoked_skipsBookLoading() {
+        StudentSummary summary = new StudentSummary(1L, "John", "Davis");
+        when(studentRepository.findSummaryPage(0L, 500)).thenReturn(Flux.just(summary));
+        when(studentSummaryDtoMapper.map(summary)).thenReturn(new StudentSummaryDto(1L, "John", "Davis"));
+
+        StepVerifier.create(studentService.getSummaries(null))
+                    .expectNext(new StudentSummaryDto(1L, "John", "Davis"))
+                    .verifyComplete();
+
+        verifyNoInteractions(studentBookRepository, bookRepository);
+    }
+
+    @Test
+    public void saveAll_whenInvoked_insertsInChunksKeepingOrder() {
+        when(transactionalOperator.transactional(any(Flux.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(studentRepository.insertAll(anyList())).thenReturn(Flux.just(1L, 2L), Flux.just(3L));
+        when(changeFeed.publish(anyList())).thenReturn(Mono.empty());
+        ArgumentCaptor<List<Student>> chunkCaptor = ArgumentCaptor.forClass(List.class);
+
+        Flux<StudentRequest> requests = Flux.just(new StudentRequest("John", "Davis"),
+                                                  new StudentRequest("Jane", "Doe"),
+                                                  new StudentRequest("Jack", "Black"));
+
+        StepVerifier.create(studentService.saveAll(requests))
+                    .expectNext(1L, 2L, 3L)
+                    .verifyComplete();
+
+        verify(studentRepository, times(2)).insertAll(chunkCaptor.capture());
+        assertThat(chunkCaptor.getAllValues()).extracting(List::size)
+                                              .containsExactly(2, 1);
+    }
+
+    @Test
+    public void addBooks_whenInvoked_reportsStatusPerPair() {
+        when(transactionalOperator.transactional(any(Flux.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(studentBookRepository.assignAll(anyList())).thenReturn(Flux.just(EnrolmentStatus.ASSIGNED,
+                                                                              EnrolmentStatus.BOOK_NOT_FOUND));
+        when(changeFeed.publish(anyList())).thenReturn(Mono.empty());
+
+        Flux<EnrolmentRequest> requests = Flux.just(new EnrolmentRequest(1L, 10L),
+                                                    new EnrolmentRequest(1L, 11L));
+
+        StepVerifier.create(studentService.addBooks(requests))
+                    .expectNext(new EnrolmentResult(1L, 10L, EnrolmentStatus.ASSIGNED))
+                    .expectNext(new EnrolmentResult(1L, 11L, EnrolmentStatus.BOOK_NOT_FOUND))
+                    .verifyComplete();
+
+        verify(changeFeed).publish(List.of(ChangeEvent.enrolled(1L, 10L)));
+    }
+
+    @Test
+    public void addBook_whenAssigned_returnsIdAndPublishes() {
+        when(studentBookRepository.assign(1L, 10L)).thenReturn(Mono.just(new Enrolment(5L, EnrolmentStatus.ASSIGNED)));
+        when(changeFeed.publish(anyList())).thenReturn(Mono.empty());
+
+        StepVerifier.create(studentService.addBook(1L, 10L))
+                    .expectNext(5L)
+                    .verifyComplete();
+
+        verify(studentAggregateCache).invalidateStudent(1L);
+        verify(changeFeed).publish(List.of(ChangeEvent.enrolled(1L, 10L)));
+    }
+
     @Test
     public void addBook_whenNoBookFound_errorResult() {
-        when(studentRepository.findById(1L)).thenReturn(Mono.just(student));
-        when(bookRepository.findById(1L)).thenReturn(Mono.empty());
+        when(studentBookRepository.assign(1L, 1L)).thenReturn(Mono.just(new Enrolment(null, EnrolmentStatus.BOOK_NOT_FOUND)));
 
         StepVerifier.create(studentService.addBook(1L, 1L))
-                .expectErrorMatches(err -> err.getMessage().equals("No student/book with given id's"))
+                .expectErrorMatches(err -> err instanceof EnrolmentException e && e.getStatus() == EnrolmentStatus.BOOK_NOT_FOUND)
                 .verify();
     }
 
     @Test
     public void addBook_whenNoStudentFound_errorResult() {
-        when(studentRepository.findById(1L)).thenReturn(Mono.empty());
-        when(bookRepository.findById(1L)).thenReturn(Mono.just(book));
+        when(studentBookRepository.assign(1L, 1L)).thenReturn(Mono.just(new Enrolment(null, EnrolmentStatus.STUDENT_NOT_FOUND)));
 
         StepVerifier.create(studentService.addBook(1L, 1L))
-                    .expectErrorMatches(err -> err.getMessage().equals("No student/book with given id's"))
+                    .expectErrorMatches(err -> err instanceof EnrolmentException e && e.getStatus() == EnrolmentStatus.STUDENT_NOT_FOUND)
+                    .verify();
+    }
+
+    @Test
+    public void addBook_whenAlreadyAssigned_errorResult() {
+        when(studentBookRepository.assign(1L, 10L)).thenReturn(Mono.just(new Enrolment(null, EnrolmentStatus.ALREADY_ASSIGNED)));
+
+        StepVerifier.create(studentService.addBook(1L, 10L))
+                    .expectErrorMatches(err -> err instanceof EnrolmentException e && e.getStatus() == EnrolmentStatus.ALREADY_ASSIGNED)
+                    .verify();
+
+        verifyNoInteractions(changeFeed);
+    }
+
+    @Test
+    public void removeBook_whenNotAssigned_errorResult() {
+        when(studentBookRepository.unassign(1L, 10L)).thenReturn(Mono.just(new Enrolment(null, EnrolmentStatus.NOT_ASSIGNED)));
+
+        StepVerifier.create(studentService.removeBook(1L, 10L))
+                    .expectErrorMatches(err -> err instanceof EnrolmentException e && e.getStatus() == EnrolmentStatus.NOT_ASSIGNED)
                     .verify();
     }
 }
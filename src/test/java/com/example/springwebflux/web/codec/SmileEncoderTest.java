@@ -0,0 +1,86 @@
+package com.example.springwebflux.web.codec;
+
+import com.example.springwebflux.web.dto.BookSummaryDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SmileEncoderTest {
+
+    private ObjectMapper objectMapper;
+
+    private ObjectMapper smileMapper;
+
+    private SmileEncoder encoder;
+
+    @BeforeEach
+    public void setup() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        smileMapper = objectMapper.copyWith(new SmileFactory());
+        encoder = new SmileEncoder(smileMapper);
+    }
+
+    @Test
+    public void encode_whenFlux_writesSingleSmileArray() throws Exception {
+        List<BookSummaryDto> books = List.of(new BookSummaryDto(1L, "Clean Code", "Robert C. Martin"),
+                                             new BookSummaryDto(2L, "Refactoring", "Martin Fowler"));
+
+        assertThat(objectMapper.writeValueAsString(smileMapper.readTree(join(encode(Flux.fromIterable(books))))))
+                .isEqualTo(objectMapper.writeValueAsString(books));
+    }
+
+    @Test
+    public void encode_whenFlux_writesEachElementAsItArrives() {
+        Sinks.Many<BookSummaryDto> books = Sinks.many().unicast().onBackpressureBuffer();
+
+        StepVerifier.create(encode(books.asFlux()).map(DataBufferUtils::release))
+                    .expectNextCount(1)
+                    .then(() -> books.tryEmitNext(new BookSummaryDto(1L, "Clean Code", "Robert C. Martin")))
+                    .expectNextCount(1)
+                    .then(books::tryEmitComplete)
+                    .expectNextCount(1)
+                    .verifyComplete();
+    }
+
+    @Test
+    public void encode_whenEmpty_writesEmptyArray() throws Exception {
+        assertThat(smileMapper.readTree(join(encode(Flux.empty()))).isEmpty()).isTrue();
+    }
+
+    @Test
+    public void canEncode_whenJson_leavesItToJsonEncoder() {
+        assertThat(encoder.canEncode(ResolvableType.forClass(BookSummaryDto.class), MediaType.APPLICATION_JSON)).isFalse();
+    }
+
+    private Flux<DataBuffer> encode(Flux<BookSummaryDto> books) {
+        return encoder.encode(books,
+                              DefaultDataBufferFactory.sharedInstance,
+                              ResolvableType.forClass(BookSummaryDto.class),
+                              MediaTypes.APPLICATION_SMILE,
+                              null);
+    }
+
+    private static byte[] join(Flux<DataBuffer> buffers) {
+        return DataBufferUtils.join(buffers)
+                              .map(buffer -> {
+                                  byte[] bytes = new byte[buffer.readableByteCount()];
+                                  buffer.read(bytes);
+                                  return bytes;
+                              })
+                              .block();
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.springwebflux.web.codec;
+
+import com.example.springwebflux.domain.StudentBookRow;
+import com.example.springwebflux.web.dto.BookDto;
+import com.example.springwebflux.web.dto.StudentDto;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.core.io.buffer.NettyDataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StudentRowsEncoderTest {
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2024, 1, 2, 3, 4, 5);
+
+    private ObjectMapper objectMapper;
+
+    private ObjectMapper smileMapper;
+
+    private StudentRowsEncoder encoder;
+
+    @BeforeEach
+    public void setup() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        smileMapper = objectMapper.copyWith(new SmileFactory());
+        encoder = new StudentRowsEncoder(objectMapper, smileMapper);
+    }
+
+    @Test
+    public void encode_whenJson_writesSameArrayAsStudentDtos() throws Exception {
+        String json = new String(encode(rows(), MediaType.APPLICATION_JSON), StandardCharsets.UTF_8);
+
+        assertThat(json).isEqualTo(objectMapper.writeValueAsString(expected()));
+    }
+
+    @Test
+    public void encode_whenSmile_writesSameArrayAsStudentDtos() throws Exception {
+        byte[] smile = encode(rows(), MediaTypes.APPLICATION_SMILE);
+
+        assertThat(objectMapper.writeValueAsString(smileMapper.readTree(smile)))
+                .isEqualTo(objectMapper.writeValueAsString(expected()));
+    }
+
+    @Test
+    public void encode_whenStreamSmile_writesOneValuePerStudentAfterSingleHeader() throws Exception {
+        byte[] smile = encode(rows(), MediaTypes.APPLICATION_STREAM_SMILE);
+
+        List<JsonNode> students = smileMapper.readerFor(JsonNode.class).<JsonNode>readValues(smile).readAll();
+
+        assertThat(objectMapper.writeValueAsString(students)).isEqualTo(objectMapper.writeValueAsString(expected()));
+    }
+
+    @Test
+    public void encode_whenNdjson_writesOneStudentPerLine() {
+        Flux<StudentBookRow> rows = Flux.just(new StudentBookRow(1L, "John", "Davis", null, null, null, null, null),
+                                              new StudentBookRow(2L, "Jane", "Doe", null, null, null, null, null));
+
+        assertThat(new String(encode(rows, MediaType.APPLICATION_NDJSON), StandardCharsets.UTF_8))
+                .isEqualTo("""
+                           {"id":1,"firstName":"John","lastName":"Davis","books":[]}
+                           {"id":2,"firstName":"Jane","lastName":"Doe","books":[]}
+                           """);
+    }
+
+    @Test
+    public void encode_whenNettyFactory_writesEachStudentIntoPooledBuffer() {
+        NettyDataBufferFactory bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+
+        List<ByteBuf> buffers = encoder.encode(rows(),
+                                               bufferFactory,
+                                               ResolvableType.forClass(StudentBookRow.class),
+                                               MediaType.APPLICATION_JSON,
+                                               null)
+                                       .map(buffer -> ((NettyDataBuffer) buffer).getNativeBuffer())
+                                       .collectList()
+                                       .block();
+
+        assertThat(buffers).hasSize(4)
+                           .allSatisfy(buffer -> assertThat(buffer.alloc()).isSameAs(PooledByteBufAllocator.DEFAULT));
+        buffers.forEach(ByteBuf::release);
+    }
+
+    @Test
+    public void encode_whenNoRows_writesEmptyArray() {
+        assertThat(encode(Flux.empty(), MediaType.APPLICATION_JSON)).asString(StandardCharsets.UTF_8).isEqualTo("[]");
+    }
+
+    private static Flux<StudentBookRow> rows() {
+        return Flux.just(new StudentBookRow(1L, "John", "Davis", 10L, "Clean Code", "Robert C. Martin", CREATED, CREATED),
+                         new StudentBookRow(1L, "John", "Davis", 11L, "Refactoring", "Martin Fowler", CREATED, CREATED),
+                         new StudentBookRow(2L, "Jane", "Doe", null, null, null, null, null));
+    }
+
+    private static List<StudentDto> expected() {
+        return List.of(new StudentDto(1L, "John", "Davis",
+                                      List.of(new BookDto(10L, "Clean Code", "Robert C. Martin", CREATED, CREATED),
+                                              new BookDto(11L, "Refactoring", "Martin Fowler", CREATED, CREATED))),
+                       new StudentDto(2L, "Jane", "Doe", List.of()));
+    }
+
+    private byte[] encode(Flux<StudentBookRow> rows, MimeType mimeType) {
+        return DataBufferUtils.join(encoder.encode(rows,
+                                                   DefaultDataBufferFactory.sharedInstance,
+                                                   ResolvableType.forClass(StudentBookRow.class),
+                                                   mimeType,
+                                                   null))
+                              .map(buffer -> {
+                                  byte[] bytes = new byte[buffer.readableByteCount()];
+                                  buffer.read(bytes);
+                                  return bytes;
+                              })
+                              .block();
+    }
+}
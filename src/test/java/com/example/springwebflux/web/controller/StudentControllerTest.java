@@ -1,7 +1,12 @@
 package com.example.springwebflux.web.controller;
 
 import com.example.springwebflux.common.AbstractTestContainersTest;
+import com.example.springwebflux.domain.EnrolmentStatus;
+import com.example.springwebflux.domain.StudentBookRow;
+import com.example.springwebflux.service.EnrolmentException;
+import com.example.springwebflux.service.StudentJson;
 import com.example.springwebflux.service.StudentService;
+import com.example.springwebflux.web.codec.MediaTypes;
 import com.example.springwebflux.web.dto.StudentDto;
 import com.example.springwebflux.web.dto.StudentRequest;
 import org.junit.jupiter.api.Test;
@@ -9,9 +14,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.mockito.Mockito.when;
@@ -29,15 +38,74 @@ class StudentControllerTest extends AbstractTestContainersTest {
 
     @Test
     public void get_whenInvoked_expectedResponse() {
-        StudentDto student = new StudentDto(1L, "John", "White", List.of());
-        when(studentService.getAll()).thenReturn(Mono.just(List.of(student)));
+        LocalDateTime created = LocalDateTime.of(2023, 7, 1, 12, 0);
+        when(studentService.getAllRows(null)).thenReturn(Flux.just(
+                new StudentBookRow(1L, "John", "White", 10L, "Clean Code", "Robert C. Martin", created, created),
+                new StudentBookRow(1L, "John", "White", 11L, "Refactoring", "Martin Fowler", created, created),
+                new StudentBookRow(2L, "Jane", "Black", null, null, null, null, null)));
 
         webTestClient.get()
                 .uri("/api/students")
                 .exchange()
                 .expectStatus().isOk()
+                .expectBody()
+                .json("""
+                      [{"id":1,"firstName":"John","lastName":"White","books":[
+                          {"id":10,"title":"Clean Code","author":"Robert C. Martin",
+                           "createdAt":"2023-07-01T12:00:00","lastModifiedAt":"2023-07-01T12:00:00"},
+                          {"id":11,"title":"Refactoring","author":"Martin Fowler",
+                           "createdAt":"2023-07-01T12:00:00","lastModifiedAt":"2023-07-01T12:00:00"}]},
+                       {"id":2,"firstName":"Jane","lastName":"Black","books":[]}]
+                      """, true);
+    }
+
+    @Test
+    public void getPage_whenPageIsFull_returnsNextCursor() {
+        StudentDto first = new StudentDto(1L, "John", "White", List.of());
+        StudentDto second = new StudentDto(2L, "Jane", "Black", List.of());
+        when(studentService.getPage(null, 2)).thenReturn(Flux.just(first, second));
+
+        webTestClient.get()
+                .uri("/api/students?limit=2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(Pagination.NEXT_CURSOR_HEADER, "2")
                 .expectBodyList(StudentDto.class)
-                .hasSize(1).contains(student);
+                .hasSize(2).contains(first, second);
+    }
+
+    @Test
+    public void getById_whenETagMatches_returnsNotModified() {
+        when(studentService.getJsonById(1L)).thenReturn(Mono.just(new StudentJson("{}".getBytes(), "abc")));
+
+        webTestClient.get()
+                .uri("/api/students/1")
+                .ifNoneMatch("\"abc\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"abc\"")
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    public void getSmileById_whenInvoked_sendsETagOfSmileRepresentation() {
+        String json = "{\"id\":1,\"firstName\":\"John\",\"lastName\":\"White\",\"books\":[]}";
+        when(studentService.getJsonById(1L)).thenReturn(Mono.just(new StudentJson(json.getBytes(), "abc")));
+
+        webTestClient.get()
+                .uri("/api/students/1")
+                .accept(MediaTypes.APPLICATION_SMILE)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"abc-smile\"")
+                .expectHeader().contentType(MediaTypes.APPLICATION_SMILE);
+
+        webTestClient.get()
+                .uri("/api/students/1")
+                .accept(MediaTypes.APPLICATION_SMILE)
+                .ifNoneMatch("\"abc-smile\"")
+                .exchange()
+                .expectStatus().isNotModified();
     }
 
     @Test
@@ -54,6 +122,30 @@ class StudentControllerTest extends AbstractTestContainersTest {
                 .isEqualTo(1L);
     }
 
+    @Test
+    public void addBook_whenAlreadyAssigned_returnsConflict() {
+        when(studentService.addBook(1L, 10L))
+                .thenReturn(Mono.error(new EnrolmentException(EnrolmentStatus.ALREADY_ASSIGNED, 1L, 10L)));
+
+        webTestClient.post()
+                .uri("/api/students/1/books/10")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.CONFLICT)
+                .expectBody()
+                .jsonPath("$.reason").isEqualTo("ALREADY_ASSIGNED");
+    }
+
+    @Test
+    public void removeBook_whenStudentMissing_returnsNotFound() {
+        when(studentService.removeBook(1L, 10L))
+                .thenReturn(Mono.error(new EnrolmentException(EnrolmentStatus.STUDENT_NOT_FOUND, 1L, 10L)));
+
+        webTestClient.delete()
+                .uri("/api/students/1/books/10")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
     @Test
     public void remove_whenInvoked_expectedResponse() {
         when(studentService.remove(1L)).thenReturn(Mono.empty());
@@ -0,0 +1,129 @@
+package com.example.springwebflux.web.filter;
+
+import com.example.springwebflux.config.AdmissionProperties;
+import com.example.springwebflux.config.DatabaseLatency;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdmissionFilterTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final WebFilterChain completing = exchange -> Mono.empty();
+
+    private SimpleMeterRegistry meterRegistry;
+    private DatabaseLatency databaseLatency;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        databaseLatency = new DatabaseLatency();
+    }
+
+    @Test
+    public void filter_whenClientExceedsRouteRate_rejectsWith429() {
+        AdmissionFilter filter = filter(2);
+
+        assertThat(status(filter, "client-a", completing)).isNull();
+        assertThat(status(filter, "client-a", completing)).isNull();
+        MockServerWebExchange rejected = exchange("client-a");
+        filter.filter(rejected, completing).block();
+        assertThat(status(filter, "client-b", completing)).isNull();
+
+        assertThat(rejected.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(meterRegistry.get("http.admission").tag("route", "student-list").tag("outcome", "rate_limited").counter().count()).isEqualTo(1);
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertThat(status(filter, "client-a", completing)).isNull();
+    }
+
+    @Test
+    public void filter_whenConcurrencyLimitReached_shedsWith503UntilRelease() {
+        AdmissionFilter filter = filter(2);
+        Sinks.Empty<Void> pending = Sinks.empty();
+        WebFilterChain hanging = exchange -> pending.asMono();
+
+        filter.filter(exchange("client-a"), hanging).subscribe();
+        filter.filter(exchange("client-b"), hanging).subscribe();
+
+        assertThat(status(filter, "client-c", completing)).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        pending.tryEmitEmpty();
+        assertThat(status(filter, "client-c", completing)).isNull();
+    }
+
+    @Test
+    public void filter_whenConnectionWaitExceedsThreshold_lowersLimit() {
+        AdmissionFilter filter = filter(4);
+        databaseLatency.record(TimeUnit.MILLISECONDS.toNanos(100));
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+
+        status(filter, "client-a", completing);
+
+        assertThat(meterRegistry.get("http.admission.limit").gauge().value()).isEqualTo(2);
+    }
+
+    private HttpStatus status(AdmissionFilter filter, String client, WebFilterChain chain) {
+        return status(filter, exchange(client), chain);
+    }
+
+    private HttpStatus status(AdmissionFilter filter, MockServerWebExchange exchange, WebFilterChain chain) {
+        filter.filter(exchange, chain).block();
+        return (HttpStatus) exchange.getResponse().getStatusCode();
+    }
+
+    @Test
+    public void filter_whenClientHeaderNotConfigured_chargesRemoteAddress() {
+        AdmissionFilter filter = filter(2);
+
+        assertThat(status(filter, exchange("client-a", "rotated-1"), completing)).isNull();
+        assertThat(status(filter, exchange("client-a", "rotated-2"), completing)).isNull();
+        assertThat(status(filter, exchange("client-a", "rotated-3"), completing)).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    private AdmissionFilter filter(int concurrencyLimit) {
+        Map<String, AdmissionProperties.Route> routes = new LinkedHashMap<>();
+        routes.put("students", new AdmissionProperties.Route("/api/students/**", List.of(), 0, 0, true));
+        routes.put("student-list", new AdmissionProperties.Route("/api/students", List.of("GET"), 1, 2, true));
+        AdmissionProperties properties = new AdmissionProperties(true,
+                                                                 "",
+                                                                 1000,
+                                                                 Duration.ofMinutes(10),
+                                                                 new AdmissionProperties.Concurrency(concurrencyLimit,
+                                                                                                     1,
+                                                                                                     10,
+                                                                                                     Duration.ofMillis(20),
+                                                                                                     Duration.ofMillis(250),
+                                                                                                     0.5),
+                                                                 routes);
+        return new AdmissionFilter(properties, databaseLatency, meterRegistry, clock::get);
+    }
+
+    private static MockServerWebExchange exchange(String client) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/api/students")
+                                                               .remoteAddress(InetSocketAddress.createUnresolved(client, 40000)));
+    }
+
+    private static MockServerWebExchange exchange(String client, String clientHeader) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/api/students")
+                                                               .remoteAddress(InetSocketAddress.createUnresolved(client, 40000))
+                                                               .header("X-Client-Id", clientHeader));
+    }
+}